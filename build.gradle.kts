@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 group = "com.github.nedelis"
@@ -12,10 +13,19 @@ repositories {
 dependencies {
     implementation("com.google.code.gson:gson:2.10.1")
     implementation("org.jetbrains:annotations:24.0.0")
+    testAnnotationProcessor(project(":processor"))
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+jmh {
+    // Run with "gradlew jmh"; narrow the run with e.g. -Pjmh.includes=ConfigWrapperBenchmark.load
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    if (project.hasProperty("jmh.includes"))
+        includes.add(project.property("jmh.includes").toString())
+}
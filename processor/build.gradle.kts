@@ -0,0 +1,10 @@
+plugins {
+    id("java")
+}
+
+group = "com.github.nedelis"
+version = rootProject.version
+
+repositories {
+    mavenCentral()
+}
@@ -0,0 +1,250 @@
+package com.github.nedelis.jc4j.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates implementations of the interfaces annotated with {@code com.github.nedelis.jc4j.JC4JConfig}.
+ * Every abstract method is implemented with the {@code ConfigWrapper} getter of its return type,
+ * keys given as paths are compiled once into static {@code ConfigPath} constants
+ */
+@SupportedAnnotationTypes(JC4JConfigProcessor.CONFIG_ANNOTATION)
+public final class JC4JConfigProcessor extends AbstractProcessor {
+
+    static final String CONFIG_ANNOTATION = "com.github.nedelis.jc4j.JC4JConfig";
+    private static final String KEY_ANNOTATION = CONFIG_ANNOTATION + ".Key";
+    private static final String WRAPPER = "com.github.nedelis.jc4j.ConfigWrapper";
+    private static final String PATH = "com.github.nedelis.jc4j.ConfigPath";
+    private static final String TYPES = "com.github.nedelis.jc4j.jsonvalue.JSONValueType";
+    private static final String JSON_VALUE = "com.github.nedelis.jc4j.jsonvalue.JSONValue";
+
+    /**
+     * Getter call templates by return type, "%s" is replaced with the key
+     */
+    private static final Map<String, String> GETTERS = Map.ofEntries(
+            Map.entry("int", "wrapper.getInt(%s, 0)"),
+            Map.entry("long", "wrapper.getLong(%s, 0L)"),
+            Map.entry("double", "wrapper.getDouble(%s, 0D)"),
+            Map.entry("float", "(float) wrapper.getDouble(%s, 0D)"),
+            Map.entry("short", "(short) wrapper.getInt(%s, 0)"),
+            Map.entry("byte", "(byte) wrapper.getInt(%s, 0)"),
+            Map.entry("boolean", "wrapper.getBoolean(%s, false)"),
+            Map.entry("java.lang.String", "wrapper.getAsJavaValue(%s, " + TYPES + ".STR)"),
+            Map.entry("java.lang.Integer", "wrapper.getAsJavaValue(%s, " + TYPES + ".INT)"),
+            Map.entry("java.lang.Double", "wrapper.getAsJavaValue(%s, " + TYPES + ".DOUBLE)"),
+            Map.entry("java.lang.Boolean", "wrapper.getAsJavaValue(%s, " + TYPES + ".BOOL)"),
+            Map.entry(JSON_VALUE, "wrapper.getOrDefault(%s)"),
+            Map.entry("java.util.List<" + JSON_VALUE + ">", "wrapper.getAsJavaValue(%s, " + TYPES + ".JS_VAL_LIST_VIEW)"),
+            Map.entry("java.util.Map<java.lang.String," + JSON_VALUE + ">", "wrapper.getAsJavaValue(%s, " + TYPES + ".JS_VAL_MAP_VIEW)")
+    );
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (var annotation : annotations)
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    error(element, "@JC4JConfig can only be applied to interfaces");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        var packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        var className = className(type);
+        var paths = new LinkedHashMap<String, String>();
+        var methods = new StringBuilder();
+        var valid = true;
+
+        for (var method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT) || method.getEnclosingElement().getKind() != ElementKind.INTERFACE)
+                continue;
+            if (!method.getParameters().isEmpty() || !method.getTypeParameters().isEmpty()) {
+                error(method, "Config methods must not have parameters");
+                valid = false;
+                continue;
+            }
+            var returnType = typeName(method.getReturnType());
+            var getter = GETTERS.get(returnType);
+            if (getter == null) {
+                error(method, "Unsupported config value type " + method.getReturnType());
+                valid = false;
+                continue;
+            }
+            var path = keyPath(method);
+            var malformed = path != null ? malformedPath(path) : null;
+            if (malformed != null) {
+                error(method, "Malformed config path '" + path + "': " + malformed);
+                valid = false;
+                continue;
+            }
+            String key;
+            if (path != null) {
+                key = paths.computeIfAbsent(path, p -> "PATH_" + paths.size());
+            } else {
+                key = literal(method.getSimpleName().toString());
+            }
+            methods.append("\n    @Override\n")
+                    .append("    public ").append(returnType).append(' ').append(method.getSimpleName()).append("() {\n")
+                    .append("        return ").append(String.format(getter, key)).append(";\n")
+                    .append("    }\n");
+        }
+        if (!valid)
+            return;
+
+        var source = new StringBuilder("// Generated by JC4JConfigProcessor, do not edit\n");
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n");
+        source.append("\n@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("public final class ").append(className).append(" implements ").append(type.getQualifiedName()).append(" {\n\n");
+        for (var entry : paths.entrySet())
+            source.append("    private static final ").append(PATH).append(' ').append(entry.getValue())
+                    .append(" = ").append(PATH).append(".compile(").append(literal(entry.getKey())).append(");\n");
+        source.append("    private final ").append(WRAPPER).append(" wrapper;\n\n")
+                .append("    public ").append(className).append('(').append(WRAPPER).append(" wrapper) {\n")
+                .append("        this.wrapper = wrapper;\n")
+                .append("    }\n")
+                .append(methods)
+                .append("\n}\n");
+
+        var qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Failed to generate " + qualifiedName + ": " + e);
+        }
+    }
+
+    /**
+     * @param type annotated interface
+     * @return the class name set in the annotation or "&lt;enclosing names&gt;_&lt;name&gt;Impl"
+     */
+    private String className(TypeElement type) {
+        var name = annotationValue(type, CONFIG_ANNOTATION, "className");
+        if (name != null && !name.isEmpty())
+            return name;
+        var names = new ArrayDeque<String>();
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement())
+            names.addFirst(e.getSimpleName().toString());
+        return String.join("_", names) + "Impl";
+    }
+
+    private String keyPath(ExecutableElement method) {
+        return annotationValue(method, KEY_ANNOTATION, "value");
+    }
+
+    /**
+     * Checks the path the same way {@code ConfigPath.compile} does, so a malformed key fails the compilation
+     * instead of the static initializer of the generated class
+     * @param path key path of a config method
+     * @return why the path is malformed, or null if it compiles
+     */
+    static String malformedPath(String path) {
+        var keyLength = 0;
+        var expectKey = true;
+        var i = 0;
+        while (i < path.length()) {
+            var c = path.charAt(i);
+            if (c == '[') {
+                if (expectKey && keyLength == 0)
+                    return "list index must follow a key at " + i;
+                var end = path.indexOf(']', i);
+                if (end < 0)
+                    return "unclosed '[' at " + i;
+                int index;
+                try {
+                    index = Integer.parseInt(path, i + 1, end, 10);
+                } catch (NumberFormatException e) {
+                    return "list index is not a number at " + i;
+                }
+                if (index < 0)
+                    return "list index is negative at " + i;
+                keyLength = 0;
+                expectKey = false;
+                i = end + 1;
+            } else if (c == '.') {
+                if (keyLength == 0 && expectKey)
+                    return "empty key at " + i;
+                keyLength = 0;
+                expectKey = true;
+                i++;
+            } else {
+                if (!expectKey)
+                    return "'.' or '[' expected after ']' at " + i;
+                if (c == '\\' && i + 1 < path.length())
+                    i++;
+                keyLength++;
+                i++;
+            }
+        }
+        return keyLength == 0 && expectKey ? "empty key at " + path.length() : null;
+    }
+
+    private static String annotationValue(Element element, String annotation, String name) {
+        for (var mirror : element.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation))
+                continue;
+            for (var entry : mirror.getElementValues().entrySet())
+                if (entry.getKey().getSimpleName().contentEquals(name))
+                    return entry.getValue().getValue().toString();
+        }
+        return null;
+    }
+
+    /**
+     * @param type return type of a config method
+     * @return source name of the type without type annotations, empty string for unsupported kinds of types
+     */
+    private static String typeName(TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        if (!(type instanceof DeclaredType declared))
+            return "";
+        var name = new StringBuilder(((TypeElement) declared.asElement()).getQualifiedName());
+        var arguments = declared.getTypeArguments();
+        if (!arguments.isEmpty()) {
+            var joiner = new StringJoiner(",", "<", ">");
+            for (var argument : arguments)
+                joiner.add(typeName(argument));
+            name.append(joiner);
+        }
+        return name.toString();
+    }
+
+    private static String literal(String value) {
+        var literal = new StringBuilder("\"");
+        for (var c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                case '\r' -> literal.append("\\r");
+                case '\t' -> literal.append("\\t");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
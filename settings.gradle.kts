@@ -1,2 +1,3 @@
 rootProject.name = "JSONConfig4Java"
 
+include("processor")
@@ -0,0 +1,161 @@
+package com.github.nedelis.jc4j.bench;
+
+import com.github.nedelis.jc4j.ConfigPath;
+import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.JSONConfig4Java;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
+import com.github.nedelis.jc4j.logging.JC4JLogLevel;
+import com.github.nedelis.jc4j.logging.JC4JLoggerBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for the load, lookup and save paths of the {@link ConfigWrapper}.
+ * <p>
+ * Every generated config contains {@link #keys} top-level keys. Most of them hold plain numbers,
+ * every 100th key holds a chain of nested maps {@link #depth} levels deep, so both flat and deep
+ * documents are covered without the 1M keys case blowing up the heap.
+ * Run it with {@code gradlew jmh}, the GC profiler reports the allocation rate next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ConfigWrapperBenchmark {
+
+    private static final int DEEP_KEY_STEP = 100;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int keys;
+
+    @Param({"1", "8", "32"})
+    public int depth;
+
+    private Path dir;
+    private File configFile;
+    private File defaultConfigFile;
+    private ConfigWrapper wrapper;
+
+    private String flatKey;
+    private String deepKey;
+    private String missingKey;
+    private ConfigPath deepPath;
+    private JSONValue newValue;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Console output would dominate every measurement
+        JSONConfig4Java.LOGGER = new JC4JLoggerBuilder("JC4J-bench").setLogLevel(JC4JLogLevel.OFF).build();
+
+        dir = Files.createTempDirectory("jc4j-bench");
+        configFile = dir.resolve("config.json").toFile();
+        defaultConfigFile = dir.resolve("default_config.json").toFile();
+        writeConfig(configFile.toPath(), keys, depth);
+        writeConfig(defaultConfigFile.toPath(), keys, depth);
+
+        wrapper = ConfigWrapper.of(configFile, defaultConfigFile);
+        flatKey = "key" + (keys / 2 + (keys / 2 % DEEP_KEY_STEP == 0 ? 1 : 0));
+        deepKey = "key0";
+        missingKey = "missing-key";
+        var path = new StringBuilder(deepKey);
+        for (int d = 1; d < depth; d++)
+            path.append(".level").append(d);
+        deepPath = ConfigPath.compile(path.toString());
+        newValue = JSONValue.of(42.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (var path : files.sorted(Comparator.reverseOrder()).toList())
+                Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public ConfigWrapper load() {
+        return ConfigWrapper.of(configFile, defaultConfigFile);
+    }
+
+    @Benchmark
+    public Integer getAsJavaValueInt() {
+        return wrapper.getAsJavaValue(flatKey, JSONValueType.INT);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return wrapper.getInt(flatKey, -1);
+    }
+
+    @Benchmark
+    public void getOrDefault(@NotNull Blackhole bh) {
+        bh.consume(wrapper.getOrDefault(flatKey));
+        bh.consume(wrapper.getOrDefault(deepKey));
+        bh.consume(wrapper.getOrDefault(missingKey));
+    }
+
+    @Benchmark
+    public int getIntByPath() {
+        return wrapper.getInt(deepPath, -1);
+    }
+
+    @Benchmark
+    public void putInConfig() {
+        wrapper.putInConfig(flatKey, newValue);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    public boolean saveConfig() {
+        // saving an unchanged config is a no-op, so make it dirty first
+        wrapper.putInConfig(flatKey, newValue);
+        return wrapper.saveConfig();
+    }
+
+    /**
+     * Writes a config with the given amount of top-level keys, every {@link #DEEP_KEY_STEP}-th key
+     * holds a chain of nested maps of the given depth
+     * @param path file to write
+     * @param keys amount of top-level keys
+     * @param depth nesting depth of the deep keys
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeConfig(@NotNull Path path, int keys, int depth) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write('{');
+            for (int i = 0; i < keys; i++) {
+                if (i > 0)
+                    writer.write(',');
+                writer.write("\"key" + i + "\":");
+                if (i % DEEP_KEY_STEP == 0) {
+                    for (int d = 1; d < depth; d++)
+                        writer.write("{\"level" + d + "\":");
+                    writer.write(Integer.toString(i));
+                    for (int d = 1; d < depth; d++)
+                        writer.write('}');
+                } else {
+                    writer.write(Integer.toString(i));
+                }
+            }
+            writer.write('}');
+        }
+    }
+
+}
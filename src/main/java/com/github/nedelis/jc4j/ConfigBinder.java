@@ -0,0 +1,299 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Maps config values onto records and plain java objects. The binding plan of a class (its constructor,
+ * the method handles of its fields and the converters of their values) is built once, the first time the class
+ * is bound, and cached in a {@link ClassValue}, so binding the same class again after a reload only runs the plan.
+ * <p>
+ * Keys are matched with record component names or field names. Records are created with their canonical
+ * constructor, missing values become null (zero for primitives). Other classes are created with their no-arg
+ * constructor and their non-static, non-final, non-transient fields (including inherited ones) are set,
+ * missing values leave the fields as they were initialized. Nested objects bind recursively.
+ * Lists, sets and maps are unmodifiable, unless the property declares a concrete collection class (e.g. {@code ArrayList}),
+ * which is created with its public no-arg constructor
+ * @see ConfigWrapper#bind(Class)
+ */
+final class ConfigBinder {
+
+    /**
+     * Returned by the value sources for absent keys, so absent keys can be told apart from json nulls
+     */
+    static final Object MISSING = new Object();
+
+    private static final MethodType SPREAD_CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<Plan> PLANS = new ClassValue<>() {
+        @Override
+        protected Plan computeValue(@NotNull Class<?> type) {
+            return type.isRecord() ? recordPlan(type) : objectPlan(type);
+        }
+    };
+
+    private ConfigBinder() {
+    }
+
+    /**
+     * Bound property of a class
+     * @param name config key of the property
+     * @param converter converts raw config values to the property type, returns null if the value doesn't fit
+     * @param absent value of the property when the key is absent or the value doesn't fit
+     * @param setter setter of the field, null for record components
+     */
+    private record Property(String name, Function<Object, Object> converter, @Nullable Object absent, @Nullable MethodHandle setter) {
+    }
+
+    /**
+     * Binding plan of a class
+     * @param type bound class
+     * @param constructor canonical constructor spreading an array of component values for records,
+     *                    no-arg constructor otherwise
+     * @param properties bound properties, in the order of the constructor parameters for records
+     */
+    private record Plan(Class<?> type, MethodHandle constructor, Property[] properties) {
+
+        private @NotNull Object bind(@NotNull Function<String, Object> values) throws Throwable {
+            if (type.isRecord()) {
+                var args = new Object[properties.length];
+                for (int i = 0; i < properties.length; i++)
+                    args[i] = convert(properties[i], values.apply(properties[i].name()));
+                return constructor.invokeExact(args);
+            }
+            var instance = constructor.invokeExact();
+            for (var property : properties) {
+                var raw = values.apply(property.name());
+                if (raw != MISSING)
+                    property.setter().invokeExact(instance, convert(property, raw));
+            }
+            return instance;
+        }
+
+        private @NotNull Object bindNested(@NotNull Map<?, ?> map) {
+            try {
+                return bind(key -> map.containsKey(key) ? map.get(key) : MISSING);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Unable to bind config to " + type.getName(), e);
+            }
+        }
+
+        private static @Nullable Object convert(@NotNull Property property, @Nullable Object raw) {
+            if (raw == MISSING || raw == null)
+                return property.absent();
+            var value = property.converter().apply(raw);
+            if (value == null) {
+                JSONConfig4Java.LOGGER.debug(() -> "Unable to bind '" + raw + "' to the property '" + property.name() + "'!");
+                return property.absent();
+            }
+            return value;
+        }
+
+    }
+
+    /**
+     * Creates a new instance of the given class from the given values
+     * @param type record or class with no-arg constructor
+     * @param values source of the raw config values by key, returns {@link #MISSING} for absent keys
+     * @return new bound instance
+     * @param <T> bound type
+     * @throws IllegalArgumentException if the class cannot be bound
+     */
+    static <T> @NotNull T bind(@NotNull Class<T> type, @NotNull Function<String, Object> values) {
+        try {
+            return type.cast(PLANS.get(type).bind(values));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Unable to bind config to " + type.getName(), e);
+        }
+    }
+
+    private static @NotNull Plan recordPlan(@NotNull Class<?> type) {
+        var components = type.getRecordComponents();
+        var parameterTypes = new Class<?>[components.length];
+        var properties = new Property[components.length];
+        for (int i = 0; i < components.length; i++) {
+            var component = components[i];
+            parameterTypes[i] = component.getType();
+            properties[i] = new Property(component.getName(), converter(component.getGenericType()),
+                    absentValue(component.getType()), null);
+        }
+        try {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            var constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameterTypes))
+                    .asSpreader(Object[].class, components.length)
+                    .asType(SPREAD_CONSTRUCTOR);
+            return new Plan(type, constructor, properties);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to access the canonical constructor of " + type.getName(), e);
+        }
+    }
+
+    private static @NotNull Plan objectPlan(@NotNull Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isPrimitive() || type.isArray())
+            throw new IllegalArgumentException(type.getName() + " cannot be bound, it must be a record or a concrete class");
+        try {
+            var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            var constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+            var properties = new ArrayList<Property>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                var fieldLookup = c == type ? lookup : MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                for (var field : c.getDeclaredFields()) {
+                    var modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+                        continue;
+                    properties.add(new Property(field.getName(), converter(field.getGenericType()), absentValue(field.getType()),
+                            fieldLookup.unreflectSetter(field).asType(SETTER)));
+                }
+            }
+            return new Plan(type, constructor, properties.toArray(Property[]::new));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to access the no-arg constructor or the fields of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @param type property type
+     * @return null for reference types, zero or false for primitives
+     */
+    private static @Nullable Object absentValue(@NotNull Class<?> type) {
+        return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    /**
+     * Builds the converter of raw config values (strings, doubles, booleans, maps and lists) to the given type
+     * @param type generic type of the property
+     * @return converter, that returns null if the value doesn't fit
+     */
+    private static @NotNull Function<Object, Object> converter(@NotNull Type type) {
+        if (type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw) {
+            var arguments = parameterized.getActualTypeArguments();
+            if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class)
+                return listConverter(raw, converter(arguments[0]));
+            if (Map.class.isAssignableFrom(raw))
+                return mapConverter(raw, converter(arguments[1]));
+            return converter(raw);
+        }
+        if (!(type instanceof Class<?> raw))
+            return value -> value;
+
+        if (raw == int.class || raw == Integer.class)
+            return value -> value instanceof Number number ? number.intValue() : null;
+        if (raw == long.class || raw == Long.class)
+            return value -> value instanceof Number number ? number.longValue() : null;
+        if (raw == double.class || raw == Double.class)
+            return value -> value instanceof Number number ? number.doubleValue() : null;
+        if (raw == float.class || raw == Float.class)
+            return value -> value instanceof Number number ? number.floatValue() : null;
+        if (raw == short.class || raw == Short.class)
+            return value -> value instanceof Number number ? number.shortValue() : null;
+        if (raw == byte.class || raw == Byte.class)
+            return value -> value instanceof Number number ? number.byteValue() : null;
+        if (raw == boolean.class || raw == Boolean.class)
+            return value -> value instanceof Boolean ? value : null;
+        if (raw == String.class)
+            return value -> value instanceof String ? value : null;
+        if (raw == Object.class)
+            return value -> value;
+        if (raw == JSONValue.class)
+            return JSONValue::of;
+        if (raw.isEnum())
+            return enumConverter(raw);
+        if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class)
+            return listConverter(raw, value -> value);
+        if (Map.class.isAssignableFrom(raw))
+            return mapConverter(raw, value -> value);
+        if (raw.isPrimitive() || raw.isArray() || raw.isInterface())
+            return value -> raw.isInstance(value) ? value : null;
+        // the nested plan is looked up when it's needed, so self-referencing classes don't recurse here
+        return value -> value instanceof Map<?, ?> map ? PLANS.get(raw).bindNested(map) : null;
+    }
+
+    private static @NotNull Function<Object, Object> enumConverter(@NotNull Class<?> type) {
+        var constants = new HashMap<String, Object>();
+        for (var constant : type.getEnumConstants())
+            constants.put(((Enum<?>) constant).name(), constant);
+        return value -> value instanceof String name ? constants.get(name) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @NotNull Function<Object, Object> listConverter(@NotNull Class<?> type, @NotNull Function<Object, Object> elements) {
+        Function<List<Object>, Object> factory;
+        if (type.isAssignableFrom(List.class)) {
+            factory = Collections::unmodifiableList;
+        } else if (type.isAssignableFrom(Set.class)) {
+            factory = list -> Collections.unmodifiableSet(new LinkedHashSet<>(list));
+        } else {
+            var constructor = noArgConstructor(type);
+            factory = list -> {
+                var collection = (Collection<Object>) newInstance(type, constructor);
+                collection.addAll(list);
+                return collection;
+            };
+        }
+        return value -> {
+            if (!(value instanceof List<?> list))
+                return null;
+            var converted = new Object[list.size()];
+            for (int i = 0; i < converted.length; i++) {
+                var element = list.get(i);
+                converted[i] = element != null ? elements.apply(element) : null;
+            }
+            return factory.apply(Arrays.asList(converted));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @NotNull Function<Object, Object> mapConverter(@NotNull Class<?> type, @NotNull Function<Object, Object> values) {
+        var constructor = type.isAssignableFrom(Map.class) ? null : noArgConstructor(type);
+        return value -> {
+            if (!(value instanceof Map<?, ?> map))
+                return null;
+            var converted = new LinkedHashMap<String, Object>(map.size() * 4 / 3 + 1);
+            for (var entry : map.entrySet())
+                converted.put(String.valueOf(entry.getKey()), entry.getValue() != null ? values.apply(entry.getValue()) : null);
+            if (constructor == null)
+                return Collections.unmodifiableMap(converted);
+            var result = (Map<String, Object>) newInstance(type, constructor);
+            result.putAll(converted);
+            return result;
+        };
+    }
+
+    /**
+     * @param type concrete collection or map class
+     * @return public no-arg constructor of the class
+     * @throws IllegalArgumentException if the class is abstract or has no such constructor
+     */
+    private static @NotNull MethodHandle noArgConstructor(@NotNull Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            throw new IllegalArgumentException(type.getName() + " cannot be bound, declare a List, Set, Map or a concrete collection class");
+        try {
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unable to access the public no-arg constructor of " + type.getName(), e);
+        }
+    }
+
+    private static @NotNull Object newInstance(@NotNull Class<?> type, @NotNull MethodHandle constructor) {
+        try {
+            return constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Unable to create " + type.getName(), e);
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.IJSONValueType;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Set of configs loaded from one directory. Every "*.json" file of the directory becomes a namespace
+ * named after the file (without the extension), and the files are parsed in parallel on a {@link java.util.concurrent.ForkJoinPool},
+ * so loading many small configs is limited by the slowest file rather than by the sum of all of them.
+ * If a profile is selected with {@link ConfigBundleBuilder#setProfile(String)}, the "name.profile.json" files of that profile
+ * are layered over the "name.json" files next to them (see {@link ConfigWrapperBuilder#addProfile(String)}) instead of
+ * becoming namespaces of their own.
+ * Values are addressed by the namespace and a path inside the config, e.g. {@code bundle.get("db", "pool.size")}
+ * @see ConfigBundleBuilder
+ */
+@SuppressWarnings("unused")
+public final class ConfigBundle {
+
+    private final File directory;
+    private final Map<String, ConfigWrapper> configs;
+    private final Map<String, Duration> loadTimes;
+    /**
+     * Compiled paths, so string paths are parsed once
+     */
+    private final Map<String, ConfigPath> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Loaded config of one file
+     */
+    private record Loaded(String namespace, ConfigWrapper config, Duration loadTime) {
+    }
+
+    /**
+     * Loads all config files of the given directory with default properties
+     * @param directory directory, that contains config files
+     * @return new config bundle with loaded configs
+     */
+    public static @NotNull ConfigBundle of(@NotNull File directory) {
+        return new ConfigBundleBuilder(directory).build();
+    }
+
+    /**
+     * You shouldn't use this constructor directly, {@link ConfigBundleBuilder} or 'of' method instead
+     * @param builder builder that contains all properties of the bundle
+     * @see ConfigBundleBuilder#build()
+     */
+    ConfigBundle(@NotNull ConfigBundleBuilder builder) {
+        this.directory = builder.directory;
+        var files = builder.directory.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            JSONConfig4Java.LOGGER.error("Failed to list config files of [" + builder.directory.getPath() + "]!");
+            files = new File[0];
+        }
+        if (builder.profile != null) {
+            var names = new HashSet<String>();
+            for (var file : files)
+                names.add(file.getName());
+            files = Arrays.stream(files).filter(file -> !isProfile(file.getName(), builder.profile, names)).toArray(File[]::new);
+        }
+
+        var tasks = new ArrayList<ForkJoinTask<Loaded>>(files.length);
+        for (var file : files)
+            tasks.add(builder.pool.submit(() -> load(file, builder)));
+
+        var configs = new HashMap<String, ConfigWrapper>();
+        var loadTimes = new HashMap<String, Duration>();
+        for (var task : tasks) {
+            var loaded = task.join();
+            configs.put(loaded.namespace(), loaded.config());
+            loadTimes.put(loaded.namespace(), loaded.loadTime());
+        }
+        this.configs = Collections.unmodifiableMap(configs);
+        this.loadTimes = Collections.unmodifiableMap(loadTimes);
+        JSONConfig4Java.LOGGER.debug(() -> "Loaded " + configs.size() + " configs from [" + directory.getPath() + "]");
+    }
+
+    /**
+     * @param name name of the config file
+     * @param profile selected profile
+     * @param names names of all config files of the directory
+     * @return true if the file is the given profile of another config file of the directory
+     */
+    private static boolean isProfile(@NotNull String name, @NotNull String profile, @NotNull Set<String> names) {
+        var suffix = "." + profile + ".json";
+        return name.length() > suffix.length() && name.endsWith(suffix)
+                && names.contains(name.substring(0, name.length() - suffix.length()) + ".json");
+    }
+
+    private static @NotNull Loaded load(@NotNull File file, @NotNull ConfigBundleBuilder builder) {
+        var name = file.getName();
+        var start = System.nanoTime();
+        var wrapper = new ConfigWrapperBuilder(file)
+                .setMemoryMapped(builder.memoryMapped);
+        if (builder.profile != null)
+            wrapper.addProfile(builder.profile);
+        return new Loaded(name.substring(0, name.length() - ".json".length()), wrapper.build(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private @NotNull ConfigPath path(@NotNull String path) {
+        return paths.computeIfAbsent(path, ConfigPath::compile);
+    }
+
+    /**
+     * @param namespace name of the config file without extension
+     * @return config of the namespace or null if there is no such namespace
+     */
+    public @Nullable ConfigWrapper config(@NotNull String namespace) {
+        return configs.get(namespace);
+    }
+
+    /**
+     * Returns wrapped value the path points to in the config of the given namespace
+     * @param namespace name of the config file without extension
+     * @param path path to the value inside the config
+     * @return wrapped value, wrapped null if there is no such namespace or value
+     * @see ConfigWrapper#getOrDefault(ConfigPath)
+     */
+    public @NotNull JSONValue get(@NotNull String namespace, @NotNull String path) {
+        var config = configs.get(namespace);
+        return config != null ? config.getOrDefault(path(path)) : JSONValue.of(null);
+    }
+
+    /**
+     * Converts the value the path points to in the config of the given namespace
+     * @param namespace name of the config file without extension
+     * @param path path to the value inside the config
+     * @param type converter
+     * @return converted value or null
+     * @param <T> type of required value
+     * @see ConfigWrapper#getAsJavaValue(ConfigPath, IJSONValueType)
+     */
+    public <T> T getAsJavaValue(@NotNull String namespace, @NotNull String path, @NotNull IJSONValueType<T> type) {
+        var config = configs.get(namespace);
+        return config != null ? config.getAsJavaValue(path(path), type) : null;
+    }
+
+    /**
+     * @return names of all configs of the bundle
+     */
+    public @NotNull Set<String> namespaces() {
+        return configs.keySet();
+    }
+
+    /**
+     * @return time each config took to load, by namespace
+     */
+    public @NotNull Map<String, Duration> loadTimes() {
+        return loadTimes;
+    }
+
+    /**
+     * @return directory of the bundle
+     */
+    public @NotNull File directory() {
+        return directory;
+    }
+
+}
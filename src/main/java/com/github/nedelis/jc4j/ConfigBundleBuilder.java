@@ -0,0 +1,71 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class helps to create {@link ConfigBundle} with non-default properties
+ */
+
+@SuppressWarnings("unused")
+public final class ConfigBundleBuilder {
+
+    final File directory;
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    boolean memoryMapped = false;
+    String profile = null;
+
+    /**
+     * Creates new builder for the given config directory
+     * @param directory directory, that contains config files
+     */
+    public ConfigBundleBuilder(@NotNull File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Specifies the pool the config files are loaded on. By default, the common pool is used
+     * @param pool pool that loads config files
+     * @return current builder with reassigned pool
+     */
+    public ConfigBundleBuilder setPool(@NotNull ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Enables or disables memory-mapped mode of all configs of the bundle
+     * @param memoryMapped whether the config files should be memory-mapped and decoded lazily
+     * @return current builder with reassigned mode
+     * @see ConfigWrapperBuilder#setMemoryMapped(boolean)
+     */
+    public ConfigBundleBuilder setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Selects the profile of all configs of the bundle: "name.profile.json" is layered over "name.json"
+     * and isn't loaded as a namespace of its own. By default, there is no profile and every file is a namespace
+     * @param profile name of the profile, e.g. "dev"
+     * @return current builder with reassigned profile
+     * @see ConfigWrapperBuilder#addProfile(String)
+     */
+    public ConfigBundleBuilder setProfile(@NotNull String profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    /**
+     * Scans the directory and loads all its config files in parallel
+     * @return new config bundle with loaded configs
+     */
+    @Contract(" -> new")
+    public @NotNull ConfigBundle build() {
+        return new ConfigBundle(this);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
+
+/**
+ * Listener that is notified when the config of a {@link ConfigWrapper} was reloaded from disk
+ * @see ConfigWatcher
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    /**
+     * Called from the watcher thread after the new config has been swapped in
+     * @param wrapper wrapper whose config was reloaded
+     * @param changedKeys keys whose values were added, removed or changed
+     */
+    void onChange(@NotNull ConfigWrapper wrapper, @NotNull Set<String> changedKeys);
+
+}
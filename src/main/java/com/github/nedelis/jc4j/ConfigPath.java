@@ -0,0 +1,199 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.CompactJSONArray;
+import com.github.nedelis.jc4j.jsonvalue.CompactJSONObject;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled path to a nested config value, e.g. {@code db.pool[2].maxSize}.
+ * Keys are separated by dots, list indexes are written in square brackets,
+ * dots and brackets inside keys can be escaped with a backslash.
+ * <p>
+ * Compile the path once and reuse it: resolving walks the config tree directly,
+ * without copying or wrapping the intermediate maps and lists
+ * @see ConfigWrapper#get(ConfigPath)
+ */
+@SuppressWarnings("unused")
+public final class ConfigPath {
+
+    private final String path;
+    /**
+     * Keys of the path segments, null for list index segments
+     */
+    private final String[] keys;
+    /**
+     * List indexes of the path segments, -1 for key segments
+     */
+    private final int[] indexes;
+
+    private ConfigPath(@NotNull String path, @NotNull String[] keys, @NotNull int[] indexes) {
+        this.path = path;
+        this.keys = keys;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Compiles the given path
+     * @param path path to compile, e.g. {@code db.pool[2].maxSize}
+     * @return compiled path
+     * @throws IllegalArgumentException if the path is malformed
+     */
+    @Contract("_ -> new")
+    public static @NotNull ConfigPath compile(@NotNull String path) {
+        var keys = new ArrayList<String>();
+        var indexes = new ArrayList<Integer>();
+        var key = new StringBuilder();
+        var expectKey = true;
+        var i = 0;
+        while (i < path.length()) {
+            var c = path.charAt(i);
+            if (c == '[') {
+                if (expectKey && key.isEmpty())
+                    throw malformed(path, i, "list index must follow a key");
+                if (!key.isEmpty())
+                    addKey(keys, indexes, key);
+                var end = path.indexOf(']', i);
+                if (end < 0)
+                    throw malformed(path, i, "unclosed '['");
+                int index;
+                try {
+                    index = Integer.parseInt(path, i + 1, end, 10);
+                } catch (NumberFormatException e) {
+                    throw malformed(path, i, "list index is not a number");
+                }
+                if (index < 0)
+                    throw malformed(path, i, "list index is negative");
+                keys.add(null);
+                indexes.add(index);
+                expectKey = false;
+                i = end + 1;
+            } else if (c == '.') {
+                if (key.isEmpty() && expectKey)
+                    throw malformed(path, i, "empty key");
+                if (!key.isEmpty())
+                    addKey(keys, indexes, key);
+                expectKey = true;
+                i++;
+            } else {
+                if (!expectKey)
+                    throw malformed(path, i, "'.' or '[' expected after ']'");
+                if (c == '\\' && i + 1 < path.length())
+                    c = path.charAt(++i);
+                key.append(c);
+                i++;
+            }
+        }
+        if (!key.isEmpty())
+            addKey(keys, indexes, key);
+        else if (expectKey)
+            throw malformed(path, path.length(), "empty key");
+
+        var indexArray = new int[indexes.size()];
+        for (int j = 0; j < indexArray.length; j++)
+            indexArray[j] = indexes.get(j);
+        return new ConfigPath(path, keys.toArray(String[]::new), indexArray);
+    }
+
+    private static void addKey(@NotNull List<String> keys, @NotNull List<Integer> indexes, @NotNull StringBuilder key) {
+        keys.add(key.toString());
+        indexes.add(-1);
+        key.setLength(0);
+    }
+
+    private static @NotNull IllegalArgumentException malformed(@NotNull String path, int position, @NotNull String reason) {
+        return new IllegalArgumentException("Malformed config path '" + path + "' at " + position + ": " + reason);
+    }
+
+    /**
+     * Resolves this path against the given config
+     * @param config top-level config values
+     * @return raw value the path points to, or null if there is no such value
+     */
+    public @Nullable Object resolve(@NotNull Map<String, JSONValue> config) {
+        if (keys[0] == null)
+            return null;
+        var root = config.get(keys[0]);
+        return root != null ? resolve(root.value(), 1, keys.length) : null;
+    }
+
+    /**
+     * Reads the number this path points to if it's stored unboxed in a compact node, so the read doesn't allocate
+     * @param config top-level config values
+     * @return number the path points to, or NaN if the path doesn't point to a number in a compact node
+     */
+    double resolveCompactNumber(@NotNull Map<String, JSONValue> config) {
+        var last = keys.length - 1;
+        if (last == 0 || keys[0] == null)
+            return Double.NaN;
+        var root = config.get(keys[0]);
+        var parent = root != null ? resolve(root.value(), 1, last) : null;
+        if (keys[last] != null)
+            return parent instanceof CompactJSONObject object ? object.getDouble(keys[last], Double.NaN) : Double.NaN;
+        return parent instanceof CompactJSONArray array && indexes[last] < array.size()
+                ? array.getDouble(indexes[last], Double.NaN) : Double.NaN;
+    }
+
+    /**
+     * Resolves this path against the given raw json value (map or list)
+     * @param root raw json value
+     * @return raw value the path points to, or null if there is no such value
+     */
+    public @Nullable Object resolveRaw(@Nullable Object root) {
+        return resolve(root, 0, keys.length);
+    }
+
+    /**
+     * Resolves the segments of this path in the given range
+     * @param current raw json value the first segment is looked up in
+     * @param from index of the first segment
+     * @param to index after the last segment
+     * @return raw value or null if there is no such value
+     */
+    private @Nullable Object resolve(@Nullable Object current, int from, int to) {
+        for (int i = from; i < to && current != null; i++) {
+            if (current instanceof JSONValue val)
+                current = val.value();
+            if (keys[i] != null) {
+                current = current instanceof Map<?, ?> map ? map.get(keys[i]) : null;
+            } else if (current instanceof List<?> list && indexes[i] < list.size()) {
+                current = list.get(indexes[i]);
+            } else {
+                current = null;
+            }
+        }
+        return current instanceof JSONValue val ? val.value() : current;
+    }
+
+    /**
+     * @return amount of segments in the path
+     */
+    public int length() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ConfigPath other && path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    /**
+     * @return source of the path
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+
+}
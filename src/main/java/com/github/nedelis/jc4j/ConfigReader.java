@@ -0,0 +1,115 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.CompactJSONArray;
+import com.github.nedelis.jc4j.jsonvalue.CompactJSONObject;
+import com.github.nedelis.jc4j.jsonvalue.JSONTreeBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming config parser. Reads json tokens with Gson's {@link JsonReader} and puts values straight
+ * into the final config map in one pass, without building an intermediate Gson tree and copying it.
+ * Accepts the same documents and produces the same values as {@code new Gson().fromJson(reader, Map.class)}:
+ * the root object is read leniently, but duplicate top-level keys and anything but whitespace after the root
+ * object are rejected. Numbers are doubles,
+ * objects are maps and arrays are lists, but nested objects and arrays are immutable compact nodes
+ * ({@link CompactJSONObject} and {@link CompactJSONArray}) built by one {@link JSONTreeBuilder} per document
+ */
+final class ConfigReader {
+
+    private ConfigReader() {
+    }
+
+    /**
+     * Reads json object from the given reader
+     * @param reader reader of the config file
+     * @return top-level config values, empty map if the input is empty
+     * @throws IOException if an I/O error occurs or the json is malformed
+     * @throws JsonSyntaxException if the top-level json value isn't an object, a top-level key is repeated
+     *                             or there is data after the root object
+     */
+    static @NotNull Map<String, JSONValue> read(@NotNull Reader reader) throws IOException {
+        var json = new JsonReader(reader);
+        json.setLenient(true);
+        JsonToken token;
+        try {
+            token = json.peek();
+        } catch (EOFException e) {
+            return new HashMap<>();
+        }
+        if (token != JsonToken.BEGIN_OBJECT)
+            throw new JsonSyntaxException("Config must be a json object, but was " + token + " at " + json.getPath());
+
+        var config = new HashMap<String, JSONValue>();
+        var tree = new JSONTreeBuilder();
+        json.beginObject();
+        while (json.hasNext()) {
+            var key = tree.intern(json.nextName());
+            if (config.put(key, JSONValue.of(readValue(json, tree))) != null)
+                throw new JsonSyntaxException("Duplicate key '" + key + "' at " + json.getPath());
+        }
+        json.endObject();
+        // Gson checks the end of the document strictly
+        json.setLenient(false);
+        if (json.peek() != JsonToken.END_DOCUMENT)
+            throw new JsonSyntaxException("Unexpected data after the root object at " + json.getPath());
+        return config;
+    }
+
+    /**
+     * Reads the next json value
+     * @param json json reader
+     * @param tree builder of the compact nodes of the document
+     * @return string, double, boolean, compact map, compact list or null
+     * @throws IOException if an I/O error occurs or the json is malformed
+     */
+    static @Nullable Object readValue(@NotNull JsonReader json, @NotNull JSONTreeBuilder tree) throws IOException {
+        switch (json.peek()) {
+            case BEGIN_OBJECT -> {
+                var keys = new ArrayList<String>();
+                var values = new ArrayList<>();
+                json.beginObject();
+                while (json.hasNext()) {
+                    keys.add(json.nextName());
+                    values.add(readValue(json, tree));
+                }
+                json.endObject();
+                return tree.object(keys, values);
+            }
+            case BEGIN_ARRAY -> {
+                var list = new ArrayList<>();
+                json.beginArray();
+                while (json.hasNext())
+                    list.add(readValue(json, tree));
+                json.endArray();
+                return tree.array(list);
+            }
+            case STRING -> {
+                return tree.value(json.nextString());
+            }
+            case NUMBER -> {
+                return json.nextDouble();
+            }
+            case BOOLEAN -> {
+                return json.nextBoolean();
+            }
+            case NULL -> {
+                json.nextNull();
+                return null;
+            }
+            default -> throw new JsonSyntaxException("Unexpected " + json.peek() + " at " + json.getPath());
+        }
+    }
+
+}
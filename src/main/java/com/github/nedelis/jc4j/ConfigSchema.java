@@ -0,0 +1,240 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.IJSONValueType;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Compiled validator of config values. Schemas are immutable trees built once from {@link IJSONValueType}s:
+ * <pre>
+ * ConfigSchema schema = new ConfigSchemaBuilder()
+ *         .required("var1", ConfigSchema.of(JSONValueType.INT))
+ *         .optional("hosts", ConfigSchema.arrayOf(ConfigSchema.of(JSONValueType.STR)))
+ *         .build();
+ * </pre>
+ * {@link #validate(Map)} walks the whole document once and collects all violations with the paths
+ * of the wrong values, in {@link ConfigPath} syntax. Arrays with at least {@link #PARALLEL_THRESHOLD} elements
+ * are validated in parallel
+ * @see ConfigWrapperBuilder#setSchema(ConfigSchema)
+ */
+@SuppressWarnings("unused")
+public final class ConfigSchema {
+
+    public static final int PARALLEL_THRESHOLD = 4096;
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final ConfigSchema ANY = new ConfigSchema("any value", (value, location, violations) -> {});
+
+    /**
+     * Validator of one node of the tree
+     */
+    @FunctionalInterface
+    private interface Validator {
+
+        /**
+         * @param value raw value to check, never a {@link JSONValue}, numbers are always doubles
+         * @param location location of the value
+         * @param violations list the violations are added to
+         */
+        void validate(@Nullable Object value, @Nullable Location location, @NotNull List<String> violations);
+
+    }
+
+    /**
+     * Location of a value in the document, turned into a string only when a violation is reported
+     * @param parent location of the enclosing object or array, null for top-level values
+     * @param key key in the enclosing object or null for array elements
+     * @param index index in the enclosing array
+     */
+    private record Location(@Nullable Location parent, @Nullable String key, int index) {
+
+        @Override
+        public String toString() {
+            var path = parent != null ? parent.toString() : "";
+            if (key == null)
+                return path + "[" + index + "]";
+            var escaped = key.replace("\\", "\\\\").replace(".", "\\.").replace("[", "\\[");
+            return path.isEmpty() ? escaped : path + "." + escaped;
+        }
+
+    }
+
+    private final String description;
+    private final Validator validator;
+
+    private ConfigSchema(@NotNull String description, @NotNull Validator validator) {
+        this.description = description;
+        this.validator = validator;
+    }
+
+    /**
+     * @return schema that accepts any value, including null
+     */
+    public static @NotNull ConfigSchema any() {
+        return ANY;
+    }
+
+    /**
+     * Schema of values that can be converted by the given type. Prefer {@link #arrayOf(ConfigSchema)}
+     * and {@link ConfigSchemaBuilder} to the list and map types, they don't copy the values
+     * @param type converter of the value
+     * @return new schema
+     */
+    @Contract("_ -> new")
+    public static @NotNull ConfigSchema of(@NotNull IJSONValueType<?> type) {
+        var name = JSONValueType.getName(type);
+        var description = name != null ? name : "value of " + type;
+        return new ConfigSchema(description, (value, location, violations) -> {
+            if (value == null || type.convert(value, null) == null)
+                report(violations, location, "expected " + description + ", but was " + kindOf(value));
+        });
+    }
+
+    /**
+     * Schema of arrays whose elements all match the given schema
+     * @param element schema of the elements
+     * @return new schema
+     */
+    @Contract("_ -> new")
+    public static @NotNull ConfigSchema arrayOf(@NotNull ConfigSchema element) {
+        var description = "array of " + element.description;
+        var elementValidator = element.validator;
+        return new ConfigSchema(description, (value, location, violations) -> {
+            if (!(value instanceof List<?> list)) {
+                report(violations, location, "expected " + description + ", but was " + kindOf(value));
+                return;
+            }
+            var size = list.size();
+            if (size < PARALLEL_THRESHOLD) {
+                validateElements(list, 0, size, elementValidator, location, violations);
+                return;
+            }
+            // chunks keep the violations in the order of the elements
+            IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        var found = new ArrayList<String>(0);
+                        validateElements(list, chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE), elementValidator, location, found);
+                        return found;
+                    })
+                    .forEachOrdered(violations::addAll);
+        });
+    }
+
+    /**
+     * Schema of objects, built by {@link ConfigSchemaBuilder#build()}
+     * @param keys keys of the properties
+     * @param schemas schemas of the properties
+     * @param required whether each property is required
+     * @param allowUnknownKeys whether keys without schema are allowed
+     * @return new schema
+     */
+    static @NotNull ConfigSchema object(@NotNull String[] keys, @NotNull ConfigSchema[] schemas, boolean[] required, boolean allowUnknownKeys) {
+        var validators = new Validator[schemas.length];
+        for (int i = 0; i < schemas.length; i++)
+            validators[i] = schemas[i].validator;
+        var known = Set.of(keys);
+        return new ConfigSchema("object", (value, location, violations) -> {
+            if (!(value instanceof Map<?, ?> map)) {
+                report(violations, location, "expected object, but was " + kindOf(value));
+                return;
+            }
+            for (int i = 0; i < keys.length; i++) {
+                var property = map.get(keys[i]);
+                if (property == null && !map.containsKey(keys[i])) {
+                    if (required[i])
+                        report(violations, new Location(location, keys[i], -1), "required value is missing");
+                    continue;
+                }
+                validators[i].validate(unwrap(property), new Location(location, keys[i], -1), violations);
+            }
+            if (!allowUnknownKeys)
+                for (var key : map.keySet())
+                    if (!known.contains(String.valueOf(key)))
+                        report(violations, new Location(location, String.valueOf(key), -1), "unknown key");
+        });
+    }
+
+    /**
+     * Adds a check to this schema, it's made only for the values that passed this schema
+     * @param check check of the raw value (string, double, boolean, map, list or null)
+     * @param requirement description of the check, used in the violation messages
+     * @return new schema
+     */
+    @Contract("_, _ -> new")
+    public @NotNull ConfigSchema where(@NotNull Predicate<Object> check, @NotNull String requirement) {
+        var base = this.validator;
+        return new ConfigSchema(description + " that " + requirement, (value, location, violations) -> {
+            var before = violations.size();
+            base.validate(value, location, violations);
+            if (violations.size() == before && !check.test(value))
+                report(violations, location, "value " + value + " doesn't satisfy: " + requirement);
+        });
+    }
+
+    /**
+     * Checks the given config values
+     * @param config top-level config values, {@link JSONValue}s are unwrapped
+     * @return all violations in document order, empty list if the config is valid
+     */
+    public @NotNull List<String> validate(@NotNull Map<String, ?> config) {
+        var violations = new ArrayList<String>();
+        validator.validate(config, null, violations);
+        return violations;
+    }
+
+    /**
+     * @return description of the values accepted by this schema
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    private static void validateElements(@NotNull List<?> list, int from, int to, @NotNull Validator element,
+                                         @Nullable Location location, @NotNull List<String> violations) {
+        for (int i = from; i < to; i++)
+            element.validate(unwrap(list.get(i)), new Location(location, null, i), violations);
+    }
+
+    /**
+     * @param value value from a config map or list
+     * @return raw value, numbers are converted to doubles like the parsed ones
+     *         (default configs made of java maps may contain integers)
+     */
+    private static @Nullable Object unwrap(@Nullable Object value) {
+        if (value instanceof JSONValue jsonValue)
+            value = jsonValue.value();
+        if (value instanceof Number number && !(value instanceof Double))
+            return number.doubleValue();
+        return value;
+    }
+
+    private static void report(@NotNull List<String> violations, @Nullable Location location, @NotNull String message) {
+        violations.add((location != null ? location.toString() : "<root>") + ": " + message);
+    }
+
+    private static @NotNull String kindOf(@Nullable Object value) {
+        if (value == null)
+            return "null";
+        if (value instanceof String)
+            return "string";
+        if (value instanceof Number)
+            return "number";
+        if (value instanceof Boolean)
+            return "boolean";
+        if (value instanceof Map)
+            return "object";
+        if (value instanceof List)
+            return "array";
+        return value.getClass().getSimpleName();
+    }
+
+}
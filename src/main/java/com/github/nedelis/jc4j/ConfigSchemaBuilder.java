@@ -0,0 +1,70 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class helps to create {@link ConfigSchema} of json objects (the config itself and nested objects)
+ */
+
+@SuppressWarnings("unused")
+public final class ConfigSchemaBuilder {
+
+    private final Map<String, ConfigSchema> properties = new LinkedHashMap<>();
+    private final Map<String, Boolean> required = new LinkedHashMap<>();
+    private boolean allowUnknownKeys = true;
+
+    /**
+     * Adds a property, that must be present in the object
+     * @param key key of the property
+     * @param schema schema of the property value
+     * @return current builder with added property
+     */
+    public ConfigSchemaBuilder required(@NotNull String key, @NotNull ConfigSchema schema) {
+        return property(key, schema, true);
+    }
+
+    /**
+     * Adds a property, that is checked only if it's present in the object
+     * @param key key of the property
+     * @param schema schema of the property value
+     * @return current builder with added property
+     */
+    public ConfigSchemaBuilder optional(@NotNull String key, @NotNull ConfigSchema schema) {
+        return property(key, schema, false);
+    }
+
+    private ConfigSchemaBuilder property(@NotNull String key, @NotNull ConfigSchema schema, boolean isRequired) {
+        this.properties.put(key, schema);
+        this.required.put(key, isRequired);
+        return this;
+    }
+
+    /**
+     * Specifies whether the object may contain keys that weren't added to the builder. By default, they are allowed
+     * @param allowUnknownKeys whether keys without schema are allowed
+     * @return current builder with reassigned option
+     */
+    public ConfigSchemaBuilder setAllowUnknownKeys(boolean allowUnknownKeys) {
+        this.allowUnknownKeys = allowUnknownKeys;
+        return this;
+    }
+
+    /**
+     * Compiles the schema of the object
+     * @return new schema with specified properties
+     */
+    @Contract(" -> new")
+    public @NotNull ConfigSchema build() {
+        var keys = properties.keySet().toArray(String[]::new);
+        var schemas = properties.values().toArray(ConfigSchema[]::new);
+        var isRequired = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            isRequired[i] = required.get(keys[i]);
+        return ConfigSchema.object(keys, schemas, isRequired, allowUnknownKeys);
+    }
+
+}
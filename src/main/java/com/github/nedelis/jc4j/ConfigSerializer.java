@@ -0,0 +1,35 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Serialisation backend of config files. One instance is shared by all wrappers it's given to,
+ * so implementations must be thread-safe and should do all their setup once, not per call
+ * @see GsonConfigSerializer
+ * @see ConfigWrapperBuilder#setSerializer(ConfigSerializer)
+ */
+public interface ConfigSerializer {
+
+    /**
+     * Reads config values from the given reader
+     * @param reader reader of the config file
+     * @return top-level config values, empty map if the input is empty
+     * @throws IOException if an I/O error occurs or the config is malformed
+     */
+    @NotNull Map<String, JSONValue> read(@NotNull Reader reader) throws IOException;
+
+    /**
+     * Writes the given config values
+     * @param content config values, {@link JSONValue}s are unwrapped
+     * @param writer destination
+     * @throws IOException if an I/O error occurs
+     */
+    void write(@NotNull Map<?, ?> content, @NotNull Writer writer) throws IOException;
+
+}
@@ -0,0 +1,316 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONTreeBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary cache of parsed config files, so an unchanged file isn't parsed again at the next start.
+ * The snapshot of "name.json" is stored next to it as "name.json.snapshot" and is used only while
+ * the size, the modification time and the CRC32C hash of the json file are the same as when it was written,
+ * and only if its own content matches the CRC32C hash stored in its header.
+ * <p>
+ * Format (big-endian), version {@link #VERSION}:
+ * <pre>
+ * int magic, short version, long source size, long source mtime, long source hash, long hash of the rest of the snapshot
+ * var string count, then every string as var byte length and UTF-8 bytes
+ * root object: var size, then every entry as var key index and value
+ * value: byte tag, then nothing (null, false, true), double (number), zigzag var (integral number),
+ *        var string index (string), object or var size and values (array)
+ * </pre>
+ * where "var" is an unsigned LEB128 int.
+ * Snapshots are memory-mapped when read and decoded into the same compact values as parsed files
+ */
+final class ConfigSnapshot {
+
+    private static final int MAGIC = 0x4A433453; // "JC4S"
+    static final short VERSION = 2;
+    private static final String EXTENSION = ".snapshot";
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte NUMBER = 3;
+    private static final byte STRING = 4;
+    private static final byte OBJECT = 5;
+    private static final byte ARRAY = 6;
+    private static final byte INTEGER = 7;
+
+    private ConfigSnapshot() {
+    }
+
+    /**
+     * Key of the json file the snapshot was made of
+     */
+    private record Source(long size, long modified, long hash) {
+
+        private static @NotNull Source of(long modified, byte @NotNull [] content) {
+            var crc = new CRC32C();
+            crc.update(content);
+            return new Source(content.length, modified, crc.getValue());
+        }
+
+    }
+
+    /**
+     * Loads the given json file from its snapshot if the snapshot is up-to-date, otherwise parses
+     * the file and writes a new snapshot
+     * @param path json file
+     * @param serializer parser of the json file
+     * @return config values
+     * @throws IOException if the json file cannot be read or parsed
+     */
+    static @NotNull Map<String, JSONValue> load(@NotNull Path path, @NotNull ConfigSerializer serializer) throws IOException {
+        var modified = Files.getLastModifiedTime(path).toMillis();
+        var content = Files.readAllBytes(path);
+        var source = Source.of(modified, content);
+        var snapshot = snapshotPath(path);
+
+        var cached = read(snapshot, source);
+        if (cached != null)
+            return cached;
+
+        Map<String, JSONValue> config;
+        try (var reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            config = serializer.read(reader);
+        }
+        try {
+            write(snapshot, source, config);
+            JSONConfig4Java.LOGGER.debug(() -> "Wrote snapshot [" + snapshot + "]");
+        } catch (IOException | RuntimeException e) {
+            JSONConfig4Java.LOGGER.warn("Failed to write snapshot [" + snapshot + "]", e);
+        }
+        return config;
+    }
+
+    /**
+     * @param path json file
+     * @return path of the snapshot of the given file
+     */
+    static @NotNull Path snapshotPath(@NotNull Path path) {
+        return path.resolveSibling(path.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Reads the snapshot if it's made of the given source
+     * @return config values or null if there is no valid up-to-date snapshot
+     */
+    private static @Nullable Map<String, JSONValue> read(@NotNull Path snapshot, @NotNull Source source) {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            JSONConfig4Java.LOGGER.debug(() -> "Failed to open snapshot [" + snapshot + "]: " + e);
+            return null;
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION
+                    || !source.equals(new Source(buffer.getLong(), buffer.getLong(), buffer.getLong()))) {
+                JSONConfig4Java.LOGGER.debug(() -> "Snapshot [" + snapshot + "] is outdated");
+                return null;
+            }
+            var hash = buffer.getLong();
+            var crc = new CRC32C();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != hash)
+                throw new IOException("Content doesn't match its hash");
+            var strings = new String[checkedSize(buffer)];
+            for (int i = 0; i < strings.length; i++) {
+                var bytes = new byte[checkedSize(buffer)];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            var tree = new JSONTreeBuilder();
+            var size = checkedSize(buffer);
+            var config = new HashMap<String, JSONValue>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+                var key = tree.intern(strings[readVar(buffer)]);
+                config.put(key, JSONValue.of(readValue(buffer, strings, tree)));
+            }
+            if (buffer.hasRemaining())
+                throw new IOException("Unexpected data after the root object");
+            JSONConfig4Java.LOGGER.debug(() -> "Loaded snapshot [" + snapshot + "]");
+            return config;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            JSONConfig4Java.LOGGER.warn("Snapshot [" + snapshot + "] is corrupted, ignoring it", e);
+            return null;
+        }
+    }
+
+    private static @Nullable Object readValue(@NotNull ByteBuffer buffer, @NotNull String[] strings, @NotNull JSONTreeBuilder tree) throws IOException {
+        var tag = buffer.get();
+        switch (tag) {
+            case NULL -> {
+                return null;
+            }
+            case FALSE -> {
+                return false;
+            }
+            case TRUE -> {
+                return true;
+            }
+            case NUMBER -> {
+                return buffer.getDouble();
+            }
+            case INTEGER -> {
+                var zigzag = readVar(buffer);
+                return (double) ((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case STRING -> {
+                return strings[readVar(buffer)];
+            }
+            case OBJECT -> {
+                var size = checkedSize(buffer);
+                var keys = new ArrayList<String>(size);
+                var values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    keys.add(strings[readVar(buffer)]);
+                    values.add(readValue(buffer, strings, tree));
+                }
+                return tree.object(keys, values);
+            }
+            case ARRAY -> {
+                var size = checkedSize(buffer);
+                var values = new ArrayList<>(size);
+                for (int i = 0; i < size; i++)
+                    values.add(readValue(buffer, strings, tree));
+                return tree.array(values);
+            }
+            default -> throw new IOException("Unknown value tag " + tag + " at " + (buffer.position() - 1));
+        }
+    }
+
+    /**
+     * Reads the size of a string, an object or an array, every element takes at least one byte
+     */
+    private static int checkedSize(@NotNull ByteBuffer buffer) throws IOException {
+        var size = readVar(buffer);
+        if (size < 0 || size > buffer.remaining())
+            throw new IOException("Invalid size " + size + " before " + buffer.position());
+        return size;
+    }
+
+    private static int readVar(@NotNull ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            var b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Malformed var int before " + buffer.position());
+    }
+
+    private static void writeVar(@NotNull DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Atomically writes the snapshot of the given config values
+     * @throws IOException if the snapshot cannot be written or the values aren't json values
+     */
+    private static void write(@NotNull Path snapshot, @NotNull Source source, @NotNull Map<String, JSONValue> config) throws IOException {
+        var strings = new LinkedHashMap<String, Integer>();
+        var body = new ByteArrayOutputStream();
+        var out = new DataOutputStream(body);
+        writeVar(out, config.size());
+        for (var entry : config.entrySet()) {
+            writeVar(out, indexOf(strings, entry.getKey()));
+            writeValue(out, entry.getValue(), strings);
+        }
+
+        var payload = new ByteArrayOutputStream(body.size() + strings.size() * 16);
+        var payloadOut = new DataOutputStream(payload);
+        writeVar(payloadOut, strings.size());
+        for (var string : strings.keySet()) {
+            var bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVar(payloadOut, bytes.length);
+            payloadOut.write(bytes);
+        }
+        body.writeTo(payloadOut);
+        var crc = new CRC32C();
+        crc.update(payload.toByteArray());
+
+        var target = snapshot.toAbsolutePath();
+        var temp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            try (var file = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW)))) {
+                file.writeInt(MAGIC);
+                file.writeShort(VERSION);
+                file.writeLong(source.size());
+                file.writeLong(source.modified());
+                file.writeLong(source.hash());
+                file.writeLong(crc.getValue());
+                payload.writeTo(file);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeValue(@NotNull DataOutputStream out, @Nullable Object value, @NotNull Map<String, Integer> strings) throws IOException {
+        if (value instanceof JSONValue jsonValue)
+            value = jsonValue.value();
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TRUE : FALSE);
+        } else if (value instanceof Number number) {
+            var d = number.doubleValue();
+            var i = (int) d;
+            // most config numbers are small integers, -0.0 must keep its sign
+            if (i == d && (i != 0 || Double.doubleToRawLongBits(d) == 0)) {
+                out.writeByte(INTEGER);
+                writeVar(out, (i << 1) ^ (i >> 31));
+            } else {
+                out.writeByte(NUMBER);
+                out.writeDouble(d);
+            }
+        } else if (value instanceof String str) {
+            out.writeByte(STRING);
+            writeVar(out, indexOf(strings, str));
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(OBJECT);
+            writeVar(out, map.size());
+            for (var entry : map.entrySet()) {
+                writeVar(out, indexOf(strings, String.valueOf(entry.getKey())));
+                writeValue(out, entry.getValue(), strings);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(ARRAY);
+            writeVar(out, list.size());
+            for (var element : list)
+                writeValue(out, element, strings);
+        } else {
+            throw new IOException("Value of " + value.getClass().getName() + " cannot be stored in a snapshot");
+        }
+    }
+
+    private static int indexOf(@NotNull Map<String, Integer> strings, @NotNull String string) {
+        var index = strings.putIfAbsent(string, strings.size());
+        return index != null ? index : strings.size() - 1;
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the config file and the layer files of a {@link ConfigWrapper} with the {@link WatchService} and reloads
+ * the wrapper when any of them changes. Bursts of file system events are debounced, and the files are re-parsed only if
+ * the size or modification time of one of them actually changed. Saves made by the wrapper itself don't trigger a reload.
+ * <p>
+ * The watcher runs on its own daemon thread, call {@link #close()} to stop it
+ * @see ConfigWrapper#watch(ConfigChangeListener)
+ */
+@SuppressWarnings("unused")
+public final class ConfigWatcher implements Closeable {
+
+    /**
+     * Debounce window used by {@link ConfigWrapper#watch(ConfigChangeListener)}
+     */
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+
+    private final ConfigWrapper wrapper;
+    private final Path file;
+    /**
+     * Config file and layer files
+     */
+    private final List<Path> files;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+
+    /**
+     * Last seen stamps of the {@link #files}, null for missing files. Used only by the watcher thread after start
+     */
+    private final Map<Path, FileStamp> stamps = new HashMap<>();
+    private volatile boolean running = true;
+
+    ConfigWatcher(@NotNull ConfigWrapper wrapper, @NotNull Duration debounce) throws IOException {
+        this.wrapper = wrapper;
+        this.file = wrapper.configFile().toPath().toAbsolutePath();
+        this.debounceMillis = Math.max(0, debounce.toMillis());
+        var files = new LinkedHashSet<Path>();
+        files.add(file);
+        for (var layer : wrapper.layerFiles())
+            files.add(layer.toPath().toAbsolutePath());
+        this.files = List.copyOf(files);
+        this.watchService = file.getFileSystem().newWatchService();
+        var directories = new HashSet<Path>();
+        for (var path : this.files) {
+            stamps.put(path, FileStamp.of(path));
+            var directory = path.getParent();
+            if (!directories.add(directory))
+                continue;
+            if (!path.equals(file) && !Files.isDirectory(directory)) {
+                JSONConfig4Java.LOGGER.warn("Directory of config layer [" + path + "] doesn't exist, the layer isn't watched");
+                continue;
+            }
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        this.thread = new Thread(this::run, "JC4J-ConfigWatcher-" + file.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Adds a listener that will be notified after each reload that changed at least one key
+     * @param listener listener to add
+     * @return this watcher
+     */
+    public @NotNull ConfigWatcher addListener(@NotNull ConfigChangeListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Removes previously added listener
+     * @param listener listener to remove
+     * @return this watcher
+     */
+    public @NotNull ConfigWatcher removeListener(@NotNull ConfigChangeListener listener) {
+        listeners.remove(listener);
+        return this;
+    }
+
+    /**
+     * Stops watching the config file
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            JSONConfig4Java.LOGGER.error("Failed to close config watcher of [" + file + "]!", e);
+        }
+    }
+
+    /**
+     * @return true if the watcher wasn't closed yet
+     */
+    public boolean isRunning() {
+        return running && thread.isAlive();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                if (!isRelevant(watchService.take()))
+                    continue;
+                // Wait until the burst of events is over, editors and saveConfig touch the file several times
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null)
+                    isRelevant(next);
+                if (stampsChanged())
+                    reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // watcher was closed
+        }
+    }
+
+    /**
+     * Updates the stamps of the watched files
+     * @return true if any file was changed by something else than the wrapper
+     */
+    private boolean stampsChanged() {
+        var changed = false;
+        for (var path : files) {
+            var stamp = FileStamp.of(path);
+            // a missing config file cannot be reloaded, while a missing layer is just empty
+            if (Objects.equals(stamp, stamps.get(path)) || stamp == null && path.equals(file))
+                continue;
+            stamps.put(path, stamp);
+            if (path.equals(file) && wrapper.isWrittenByWrapper(stamp)) {
+                JSONConfig4Java.LOGGER.debug(() -> "Config file [" + file + "] was saved by its wrapper, skipping reload");
+                continue;
+            }
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Drains the events of the given key and resets it
+     * @param key signalled watch key
+     * @return true if any of the events concerns a watched file
+     */
+    private boolean isRelevant(@NotNull WatchKey key) {
+        var relevant = false;
+        var directory = (Path) key.watchable();
+        for (var event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || event.context() instanceof Path name && files.contains(directory.resolve(name)))
+                relevant = true;
+        }
+        key.reset();
+        return relevant;
+    }
+
+    private void reload() {
+        var changedKeys = wrapper.reload();
+        if (changedKeys.isEmpty())
+            return;
+        for (var listener : listeners) {
+            try {
+                listener.onChange(wrapper, changedKeys);
+            } catch (RuntimeException e) {
+                JSONConfig4Java.LOGGER.error("Config change listener failed!", e);
+            }
+        }
+    }
+
+}
@@ -3,8 +3,8 @@ package com.github.nedelis.jc4j;
 import com.github.nedelis.jc4j.jsonvalue.IJSONValueType;
 import com.github.nedelis.jc4j.jsonvalue.JSONValue;
 import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.github.nedelis.jc4j.util.PersistentHashMap;
+import com.google.gson.JsonParseException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -13,19 +13,83 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * Wrapper for config files and default config files
+ * Wrapper for config files and default config files. Every wrapper is safe to use from many threads:
+ * reads go through an immutable snapshot of the config without any locking, and changes replace the snapshot atomically
  */
 @SuppressWarnings("unused")
 public class ConfigWrapper {
 
-    private final Map<String, JSONValue> config = new HashMap<>();
-    private final Map<String, JSONValue> defaultConfig = new HashMap<>();
+    /**
+     * Current config values: an immutable {@link PersistentHashMap} (or a read-only {@link MappedConfig} until
+     * the first change), that is replaced as a whole by {@link #edit(Consumer)}, so readers never need a lock
+     * and snapshots of the config are free
+     */
+    private volatile Map<String, JSONValue> config;
+    private final PersistentHashMap<String, JSONValue> defaultConfig;
     private final File configFile;
+    private final boolean memoryMapped;
+    private final ConfigSerializer serializer;
+    private final ConfigSchema schema;
+    private final boolean snapshots;
+    private final Object writeLock = new Object();
+    private final Object saveLock = new Object();
+    /**
+     * Incremented after every change of the config, used to skip saving an unchanged config
+     */
+    private final AtomicLong modifications = new AtomicLong();
+    private long savedModifications;
+    /**
+     * Stamp of the config file right after the last save by this wrapper, so the watcher can ignore that save
+     */
+    private FileStamp writtenStamp;
+    private final Duration writeBehindWindow;
+    private final WriteBehindSaver writeBehind;
     private boolean isBroken = false;
+    private final List<File> layerFiles;
+    /**
+     * Contents of {@link #layerFiles} in the same order (ascending priority), empty maps for missing files
+     */
+    private volatile List<Map<String, JSONValue>> overlays;
+    /**
+     * Runtime overrides, the highest layer. They aren't saved to the config file
+     */
+    private final Map<String, JSONValue> overrides = new ConcurrentHashMap<>();
+    /**
+     * All layers flattened into one map, so a read is a single lookup however many layers there are.
+     * It exists only if there are layers besides the config and the default config, and it's updated
+     * key by key when layers change. It's an immutable snapshot like {@link #config}
+     */
+    private volatile PersistentHashMap<String, JSONValue> resolved;
+    /**
+     * Memoised results of {@link #getCachedAsJavaValue(String, IJSONValueType)} per key
+     */
+    private final Map<String, Conversions> conversions = new ConcurrentHashMap<>();
+
+    /**
+     * Converted values of one config entry
+     * @param source config entry the values were converted from, null if they come from the default config.
+     *               Entries are compared by identity, so a replaced entry never matches stale conversions
+     * @param types converters
+     * @param values converted values, in the same order as the converters
+     */
+    private record Conversions(@Nullable JSONValue source, IJSONValueType<?>[] types, Object[] values) {
+
+        private @NotNull Conversions with(@NotNull IJSONValueType<?> type, Object value) {
+            var newTypes = Arrays.copyOf(types, types.length + 1);
+            var newValues = Arrays.copyOf(values, values.length + 1);
+            newTypes[types.length] = type;
+            newValues[values.length] = value;
+            return new Conversions(source, newTypes, newValues);
+        }
+
+    }
 
     /**
      * Creates a new config file in config files directory and fills it with default values
@@ -34,24 +98,21 @@ public class ConfigWrapper {
      * @throws IOException thrown if file cannot be created
      */
     private void createConfig(@NotNull String pathToConfigFile, @NotNull Map<?, ?> content) throws IOException {
-        var path = Path.of(pathToConfigFile);
-        Files.createFile(path);
-        try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
-            new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(content, writer);
-        }
+        ConfigWriter.writeAtomically(Path.of(pathToConfigFile), content, serializer);
     }
 
     /**
-     * Loads the configuration file values to {@link #config}
+     * Loads the configuration file values to {@link #config}.
+     * The file is parsed in one streaming pass straight into the returned map,
+     * or read from its binary snapshot if snapshots are enabled and the file wasn't changed
      * @param pathToConfigFile path to config file that will be loaded
-     * @throws IOException if config file is not found or any other I/O error occurs
+     * @throws IOException if config file is not found, it is malformed or any other I/O error occurs
      */
     private Map<String, JSONValue> loadConfig(@NotNull String pathToConfigFile) throws IOException {
-        try (var reader = Files.newBufferedReader(Path.of(pathToConfigFile))) {
-            return JSONValueType.JS_VAL_MAP.convert(
-                    new Gson().fromJson(reader, Map.class),
-                    new HashMap<>()
-            );
+        if (snapshots)
+            return ConfigSnapshot.load(Path.of(pathToConfigFile), serializer);
+        try (var reader = Files.newBufferedReader(Path.of(pathToConfigFile), StandardCharsets.UTF_8)) {
+            return serializer.read(reader);
         }
     }
 
@@ -64,7 +125,7 @@ public class ConfigWrapper {
      * @return new {@link ConfigWrapper} with loaded config values
      */
     public static @NotNull ConfigWrapper of(@NotNull String pathToConfigDir, @NotNull String configFileName, @NotNull File defaultConfig) {
-        return new ConfigWrapper(new File(pathToConfigDir + File.separator + configFileName + ".json"), defaultConfig);
+        return new ConfigWrapperBuilder(pathToConfigDir, configFileName).setDefaultConfig(defaultConfig).build();
     }
 
     /**
@@ -74,7 +135,7 @@ public class ConfigWrapper {
      * @return new {@link ConfigWrapper} with loaded config values
      */
     public static @NotNull ConfigWrapper of(@NotNull File configFile, @NotNull File defaultConfigFile) {
-        return new ConfigWrapper(configFile, defaultConfigFile);
+        return new ConfigWrapperBuilder(configFile).setDefaultConfig(defaultConfigFile).build();
     }
 
     /**
@@ -84,7 +145,7 @@ public class ConfigWrapper {
      * @return new {@link ConfigWrapper} with loaded config values
      */
     public static @NotNull ConfigWrapper of(@NotNull File configFile, @NotNull Map<?, ?> defaultConfigMap) {
-        return new ConfigWrapper(configFile, defaultConfigMap);
+        return new ConfigWrapperBuilder(configFile).setDefaultConfig(defaultConfigMap).build();
     }
 
     /**
@@ -96,98 +157,304 @@ public class ConfigWrapper {
      * @return new {@link ConfigWrapper} with loaded config values
      */
     public static @NotNull ConfigWrapper of(@NotNull String pathToConfigDir, @NotNull String configFileName, @NotNull Map<?, ?> defaultConfigMap) {
-        return new ConfigWrapper(new File(pathToConfigDir + File.separator + configFileName + ".json"), defaultConfigMap);
+        return new ConfigWrapperBuilder(pathToConfigDir, configFileName).setDefaultConfig(defaultConfigMap).build();
     }
 
     /**
-     * You shouldn't use this constructor directly, 'of' method instead.
-     * Initializes config wrapper with provided config file and provided default config file
-     * @param config config file
-     * @param defaultConfig default config file
-     * @see #of(String, String, File)
+     * You shouldn't use this constructor directly, {@link ConfigWrapperBuilder} or 'of' method instead.
+     * Initializes config wrapper with the config file, default config and mode specified in the builder
+     * @param builder builder that contains all properties of the wrapper
+     * @see ConfigWrapperBuilder#build()
      */
-    private ConfigWrapper(@NotNull File config, @NotNull File defaultConfig) {
-        try {
-            this.defaultConfig.putAll(loadConfig(defaultConfig.getPath()));
-        } catch (IOException e) {
-            JSONConfig4Java.LOGGER.error("Failed to load default config file [" + defaultConfig.getPath() + "]!", e);
+    ConfigWrapper(@NotNull ConfigWrapperBuilder builder) {
+        this.configFile = builder.configFile;
+        this.memoryMapped = builder.memoryMapped;
+        this.serializer = builder.serializer;
+        this.schema = builder.schema;
+        this.snapshots = builder.snapshots;
+        this.writeBehindWindow = builder.writeBehindWindow;
+        this.writeBehind = writeBehindWindow != null ? new WriteBehindSaver(this, writeBehindWindow) : null;
+        this.layerFiles = List.copyOf(builder.layerFiles);
+
+        var defaultLoaded = true;
+        Map<String, JSONValue> defaults = Map.of();
+        if (builder.defaultConfigFile != null) {
+            try {
+                defaults = loadConfig(builder.defaultConfigFile.getPath());
+            } catch (IOException | JsonParseException e) {
+                defaultLoaded = false;
+                JSONConfig4Java.LOGGER.error("Failed to load default config file [" + builder.defaultConfigFile.getPath() + "]!", e);
+            }
+        } else {
+            defaults = JSONValueType.JS_VAL_MAP.convert(builder.defaultConfigMap, new HashMap<>());
         }
+        this.defaultConfig = PersistentHashMap.of(defaults);
 
-        if (!config.exists()) {
+        if (!configFile.exists()) {
             try {
-                var defConfigMap = new Gson().fromJson(
-                        Files.newBufferedReader(defaultConfig.toPath(), StandardCharsets.UTF_8),
-                        Map.class);
-                createConfig(config.getPath(), defConfigMap
-                );
+                if (!defaultLoaded)
+                    throw new IOException("Default config is not available");
+                if (builder.defaultConfigFile != null)
+                    Files.copy(builder.defaultConfigFile.toPath(), configFile.toPath());
+                else
+                    createConfig(configFile.getPath(), builder.defaultConfigMap);
             } catch (IOException e) {
                 isBroken = true;
-                JSONConfig4Java.LOGGER.error("Failed to generate [" + config.getPath() + "] config file!", e);
+                JSONConfig4Java.LOGGER.error("Failed to generate [" + configFile.getPath() + "] config file!", e);
             }
         }
 
+        Map<String, JSONValue> loaded = new HashMap<>();
         if (!isBroken) {
             try {
-                this.config.putAll(loadConfig(config.getPath()));
-            } catch (IOException ioe) {
+                loaded = readConfig();
+            } catch (IOException | JsonParseException e) {
                 isBroken = true;
-                JSONConfig4Java.LOGGER.error("Failed to load [" + config.getPath() + "] config file", ioe);
+                JSONConfig4Java.LOGGER.error("Failed to load [" + configFile.getPath() + "] config file", e);
             }
         }
+        if (!isBroken && !isValid(loaded)) {
+            isBroken = true;
+            loaded = new HashMap<>();
+        }
 
         if (isBroken)
-            this.config.putAll(this.defaultConfig);
+            loaded.putAll(this.defaultConfig);
 
-        this.configFile = config;
+        this.config = snapshotOf(loaded);
+        // config made of defaults isn't on disk yet
+        this.savedModifications = isBroken ? -1 : 0;
+        this.overlays = loadOverlays();
+        refreshResolved(null);
     }
 
     /**
-     * You shouldn't use this constructor directly, 'of' method instead.
-     * Initializes config wrapper with provided config file and provided default config content
-     * @param config config file
-     * @param defaultConfig default config content
-     * @see #of(String, String, File)
+     * This constructor should be called to create a copy of the wrapper
+     * @param config content of the config/config_file (usually {@link #config})
+     * @param defaultConfig content of the default_config/default_config_file (usually {@link #defaultConfig})
+     * @param configFile config file, that will be stored in wrapper (usually {@link #configFile})
+     * @param memoryMapped whether the copy reloads its file with memory mapping (usually {@link #memoryMapped})
+     * @param serializer serialisation backend of the copy (usually {@link #serializer})
+     * @param schema schema of the copy or null (usually {@link #schema})
+     * @param snapshots whether the copy caches parsed files in snapshots (usually {@link #snapshots})
+     * @param writeBehindWindow write-behind window of the copy or null (usually {@link #writeBehindWindow})
+     * @param layerFiles files of the layers above the config (usually {@link #layerFiles})
+     * @param overlays loaded layers (usually {@link #overlays})
+     * @param overrides runtime overrides (usually {@link #overrides})
+     * @param resolved flattened view of all the layers above or null (usually {@link #resolved})
      */
-    private ConfigWrapper(@NotNull File config, @NotNull Map<?, ?> defaultConfig) {
-        this.defaultConfig.putAll(defaultConfig.entrySet().stream().collect(Collectors.toMap(
-                entry -> entry.getKey().toString(),
-                entry -> JSONValue.of(entry.getValue())
-        )));
+    private ConfigWrapper(@NotNull Map<String, JSONValue> config, @NotNull PersistentHashMap<String, JSONValue> defaultConfig, @NotNull File configFile,
+                          boolean memoryMapped, @NotNull ConfigSerializer serializer,
+                          @Nullable ConfigSchema schema, boolean snapshots, @Nullable Duration writeBehindWindow,
+                          @NotNull List<File> layerFiles, @NotNull List<Map<String, JSONValue>> overlays,
+                          @NotNull Map<String, JSONValue> overrides, @Nullable PersistentHashMap<String, JSONValue> resolved) {
+        // both maps are immutable, so the copy shares them until one of the wrappers is changed
+        this.config = config;
+        this.defaultConfig = defaultConfig;
+        this.configFile = configFile;
+        this.memoryMapped = memoryMapped;
+        this.serializer = serializer;
+        this.schema = schema;
+        this.snapshots = snapshots;
+        this.writeBehindWindow = writeBehindWindow;
+        this.writeBehind = writeBehindWindow != null ? new WriteBehindSaver(this, writeBehindWindow) : null;
+        this.savedModifications = -1;
+        this.layerFiles = layerFiles;
+        this.overlays = overlays;
+        this.overrides.putAll(overrides);
+        this.resolved = resolved;
+    }
 
-        if (!config.exists()) {
+    /**
+     * Reads the config file, memory-mapping it in memory-mapped mode.
+     * If the file cannot be mapped or the serializer isn't a Gson one, it's loaded eagerly
+     * @return config values
+     * @throws IOException if config file is not found, it is malformed or any other I/O error occurs
+     */
+    private Map<String, JSONValue> readConfig() throws IOException {
+        if (memoryMapped && serializer instanceof GsonConfigSerializer) {
             try {
-                createConfig(config.getPath(), defaultConfig);
+                return MappedConfig.open(configFile.toPath());
             } catch (IOException e) {
-                isBroken = true;
-                JSONConfig4Java.LOGGER.error("Failed to generate [" + config.getPath() + "] config file!", e);
+                JSONConfig4Java.LOGGER.warn("Failed to memory-map [" + configFile.getPath() + "], loading it eagerly", e);
             }
         }
+        return loadConfig(configFile.getPath());
+    }
 
-        if (!isBroken) {
-            try {
-                this.config.putAll(loadConfig(config.getPath()));
-            } catch (IOException ioe) {
-                isBroken = true;
-                JSONConfig4Java.LOGGER.error("Failed to load [" + config.getPath() + "] config file", ioe);
+    /**
+     * Validates loaded config values over the default config with the {@link #schema} and logs all violations
+     * @param loaded freshly loaded config values
+     * @return true if there is no schema or the values are valid
+     */
+    private boolean isValid(@NotNull Map<String, JSONValue> loaded) {
+        if (schema == null)
+            return true;
+        var effective = new HashMap<>(this.defaultConfig);
+        effective.putAll(loaded);
+        var violations = schema.validate(effective);
+        if (violations.isEmpty())
+            return true;
+        JSONConfig4Java.LOGGER.error("Config file [" + configFile.getPath() + "] doesn't match the schema:\n  " + String.join("\n  ", violations));
+        return false;
+    }
+
+    /**
+     * Prepares loaded config values to be published as {@link #config}
+     * @param loaded freshly loaded config values
+     * @return persistent map of the values, the given map if it's memory-mapped
+     */
+    private Map<String, JSONValue> snapshotOf(@NotNull Map<String, JSONValue> loaded) {
+        return loaded instanceof MappedConfig ? loaded : PersistentHashMap.of(loaded);
+    }
+
+    /**
+     * Loads the layers above the config file. Layers that don't exist or cannot be loaded are empty
+     * @return contents of {@link #layerFiles}
+     */
+    private List<Map<String, JSONValue>> loadOverlays() {
+        var loaded = new ArrayList<Map<String, JSONValue>>(layerFiles.size());
+        for (var file : layerFiles) {
+            Map<String, JSONValue> layer = Map.of();
+            if (file.exists()) {
+                try {
+                    layer = Collections.unmodifiableMap(loadConfig(file.getPath()));
+                } catch (IOException | JsonParseException e) {
+                    JSONConfig4Java.LOGGER.error("Failed to load config layer [" + file.getPath() + "]", e);
+                }
+            } else {
+                JSONConfig4Java.LOGGER.debug(() -> "Config layer [" + file.getPath() + "] doesn't exist, skipping it");
             }
+            loaded.add(layer);
         }
+        return List.copyOf(loaded);
+    }
 
-        if (isBroken)
-            this.config.putAll(this.defaultConfig);
+    /**
+     * @param index index of the layer counting from the highest one
+     * @param overlays current {@link #overlays}
+     * @return overrides, overlays from the highest, config and default config, or null after the last layer
+     */
+    private @Nullable Map<String, JSONValue> layer(int index, @NotNull List<Map<String, JSONValue>> overlays) {
+        if (index == 0)
+            return this.overrides;
+        if (index <= overlays.size())
+            return overlays.get(overlays.size() - index);
+        if (index == overlays.size() + 1)
+            return this.config;
+        return index == overlays.size() + 2 ? this.defaultConfig : null;
+    }
 
-        this.configFile = config;
+    /**
+     * Finds the value of the key in the highest layer that contains it, without the {@link #resolved} view
+     * @param key key to get value
+     * @return value of the key or null
+     */
+    private @Nullable JSONValue resolveKey(@NotNull String key) {
+        var layers = this.overlays;
+        Map<String, JSONValue> layer;
+        for (int i = 0; (layer = layer(i, layers)) != null; i++) {
+            var val = layer.get(key);
+            if (val != null)
+                return val;
+        }
+        return null;
     }
 
     /**
-     * This constructor should be called to create a copy of the wrapper
-     * @param config content of the config/config_file (usually {@link #config})
-     * @param defaultConfig content of the default_config/default_config_file (usually {@link #defaultConfig})
-     * @param configFile config file, that will be stored in wrapper (usually {@link #configFile})
+     * Returns the value of the key in the highest layer that contains it
+     * @param key key to get value
+     * @return value of the key or null
      */
-    private ConfigWrapper(@NotNull Map<String, JSONValue> config, @NotNull Map<String, JSONValue> defaultConfig, @NotNull File configFile) {
-        this.config.putAll(config);
-        this.defaultConfig.putAll(defaultConfig);
-        this.configFile = configFile;
+    private @Nullable JSONValue lookup(@NotNull String key) {
+        var view = this.resolved;
+        if (view != null)
+            return view.get(key);
+        // without the view there are no other layers
+        var val = this.config.get(key);
+        return val != null ? val : this.defaultConfig.get(key);
+    }
+
+    /**
+     * Fallback for the case when the value from the highest layer doesn't fit: looks through all layers
+     * from the highest one for a raw value of the given class
+     * @param key key to get value
+     * @param kind required class of the value
+     * @return the first raw value of the required class or null
+     */
+    private @Nullable Object findRaw(@NotNull String key, @NotNull Class<?> kind) {
+        var layers = this.overlays;
+        Map<String, JSONValue> layer;
+        for (int i = 0; (layer = layer(i, layers)) != null; i++) {
+            var val = layer.get(key);
+            if (val != null && kind.isInstance(val.value()))
+                return val.value();
+        }
+        return null;
+    }
+
+    /**
+     * Same as {@link #findRaw(String, Class)}, but for nested values
+     * @param path compiled path to the value
+     * @param kind required class of the value
+     * @return the first raw value of the required class or null
+     */
+    private @Nullable Object findRaw(@NotNull ConfigPath path, @NotNull Class<?> kind) {
+        var layers = this.overlays;
+        Map<String, JSONValue> layer;
+        for (int i = 0; (layer = layer(i, layers)) != null; i++) {
+            var raw = path.resolve(layer);
+            if (kind.isInstance(raw))
+                return raw;
+        }
+        return null;
+    }
+
+    /**
+     * @return flattened view if there is one, otherwise the config
+     */
+    private Map<String, JSONValue> view() {
+        var view = this.resolved;
+        return view != null ? view : this.config;
+    }
+
+    /**
+     * Flattens all layers into one map
+     * @return new mutable map
+     */
+    private Map<String, JSONValue> flatten() {
+        var flat = new HashMap<>(this.defaultConfig);
+        flat.putAll(this.config);
+        for (var overlay : this.overlays)
+            flat.putAll(overlay);
+        flat.putAll(this.overrides);
+        return flat;
+    }
+
+    /**
+     * Updates the {@link #resolved} view after the given keys were changed in any layer.
+     * Creates the view when the first layer besides config and default config appears.
+     * Must be called under {@link #writeLock}
+     * @param keys changed keys, null to re-flatten everything
+     */
+    private void refreshResolved(@Nullable Collection<String> keys) {
+        var current = this.resolved;
+        if (current == null) {
+            if (this.overrides.isEmpty() && this.overlays.stream().allMatch(Map::isEmpty))
+                return;
+            keys = null;
+        }
+        PersistentHashMap<String, JSONValue> next;
+        if (keys == null) {
+            next = PersistentHashMap.of(flatten());
+        } else {
+            next = current;
+            for (var key : keys) {
+                var val = resolveKey(key);
+                next = val != null ? next.with(key, val) : next.without(key);
+            }
+        }
+        this.resolved = next;
     }
 
     /**
@@ -219,14 +486,18 @@ public class ConfigWrapper {
     }
 
     /**
-     * Returns raw value corresponding to the provided key if config contains such key,
-     * otherwise returns raw value from default config corresponding to the same key
+     * Returns raw value corresponding to the provided key from the highest layer that contains it:
+     * runtime overrides, added layers, config and then default config
      * @param key key to get value
      * @return raw value from config or raw value from default config corresponding to the same key
+     * @see ConfigWrapperBuilder#addLayer(File)
      */
     @Nullable
     public Object getRawOrDefault(@NotNull String key) {
-        return getRawOrDefault(key, getRawFromDefault(key));
+        var val = lookup(key);
+        if (val != null && val.value() != null)
+            return val.value();
+        return findRaw(key, Object.class);
     }
 
     /**
@@ -266,14 +537,15 @@ public class ConfigWrapper {
     }
 
     /**
-     * Returns wrapped value from the config corresponding to the provided key if the config contains such key,
-     * otherwise returns value from default config corresponding to the same key
+     * Returns wrapped value corresponding to the provided key from the highest layer that contains it
+     * (usually the config, otherwise the default config)
      * @param key key to get value
      * @return wrapped value from the config corresponding to the provided key
      * or default value from default config corresponding to the same key
+     * @see #getRawOrDefault(String)
      */
     public JSONValue getOrDefault(@NotNull String key) {
-        return getOrDefault(key, getFromDefault(key));
+        return JSONValue.of(getRawOrDefault(key));
     }
 
     /**
@@ -298,9 +570,9 @@ public class ConfigWrapper {
     }
 
     /**
-     * Shortcut for "get(String).toJavaValue(IJSONValueType)".
-     * If there is provided key in default config, it'll use convert function with default value,
-     * if not it'll use convert function with null as default value
+     * Shortcut for "getOrDefault(String).toJavaValue(IJSONValueType)".
+     * Converts the value from the highest layer that contains the key (usually the config),
+     * and only if it cannot be converted, tries the values from the lower layers (down to the default config)
      * @param key key to get value from config (and from default config if it has such key)
      * @param type converter
      * @return value corresponding to the provided key or default value from default config or null
@@ -309,18 +581,292 @@ public class ConfigWrapper {
      * @see IJSONValueType#convert(Object, Object)
      */
     public <T> T getAsJavaValue(@NotNull String key, @NotNull IJSONValueType<T> type) {
-        return type.convert(getRaw(key), type.convert(getRawFromDefault(key), null));
+        var val = lookup(key);
+        var converted = type.convert(val != null ? val.value() : null, null);
+        if (converted != null)
+            return converted;
+        var layers = this.overlays;
+        Map<String, JSONValue> layer;
+        for (int i = 0; (layer = layer(i, layers)) != null; i++) {
+            var candidate = layer.get(key);
+            if (candidate != null && candidate != val && (converted = type.convert(candidate.value(), null)) != null)
+                return converted;
+        }
+        return null;
+    }
+
+    /**
+     * Same as {@link #getAsJavaValue(String, IJSONValueType)}, but the converted value is memoised, so repeated calls
+     * return the same object without converting the value again. The memoised value is dropped as soon as the entry
+     * is replaced (by put methods, overrides, {@link #edit(Consumer)} or {@link #reload()}).
+     * The returned value is shared between callers, so it must not be modified:
+     * use unmodifiable types like {@link JSONValueType#JS_VAL_LIST_VIEW} and {@link JSONValueType#JS_VAL_MAP_VIEW}
+     * for lists and maps
+     * @param key key to get value from config (and from default config if it has such key)
+     * @param type converter
+     * @return value corresponding to the provided key or default value from default config or null
+     * @param <T> type of required value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getCachedAsJavaValue(@NotNull String key, @NotNull IJSONValueType<T> type) {
+        var source = lookup(key);
+        var cached = conversions.get(key);
+        if (cached != null && cached.source() == source) {
+            var types = cached.types();
+            for (int i = 0; i < types.length; i++)
+                if (types[i] == type)
+                    return (T) cached.values()[i];
+        } else {
+            cached = null;
+        }
+
+        var value = getAsJavaValue(key, type);
+        // racing readers may overwrite each other's conversions, that only costs another conversion later
+        conversions.put(key, cached != null ? cached.with(type, value)
+                : new Conversions(source, new IJSONValueType<?>[]{type}, new Object[]{value}));
+        return value;
+    }
+
+    /**
+     * Returns the number stored under the provided key in the highest layer that contains a number under this key
+     * (usually the config, otherwise the default config). The returned number is the one already decoded
+     * at load time, so no new objects are created
+     * @param key key to get value
+     * @return decoded number or null if no layer contains a number under the key
+     */
+    private @Nullable Number getNumber(@NotNull String key) {
+        var val = lookup(key);
+        if (val != null && val.value() instanceof Number n)
+            return n;
+        return findRaw(key, Number.class) instanceof Number n ? n : null;
+    }
+
+    /**
+     * Allocation-free alternative to "getAsJavaValue(key, JSONValueType.INT)".
+     * Takes the value from the config, then from the default config, and if none of them contains
+     * a number under the provided key, returns provided default value
+     * @param key key to get value
+     * @param def default value
+     * @return int value corresponding to the provided key or default value
+     * @see JSONValueType#INT
+     */
+    public int getInt(@NotNull String key, int def) {
+        var n = getNumber(key);
+        return n != null ? n.intValue() : def;
+    }
+
+    /**
+     * Same as {@link #getInt(String, int)} with 0 as default value
+     * @param key key to get value
+     * @return int value corresponding to the provided key or 0
+     */
+    public int getInt(@NotNull String key) {
+        return getInt(key, 0);
+    }
+
+    /**
+     * Allocation-free way to get a long value from the config.
+     * Takes the value from the config, then from the default config, and if none of them contains
+     * a number under the provided key, returns provided default value
+     * @param key key to get value
+     * @param def default value
+     * @return long value corresponding to the provided key or default value
+     */
+    public long getLong(@NotNull String key, long def) {
+        var n = getNumber(key);
+        return n != null ? n.longValue() : def;
+    }
+
+    /**
+     * Same as {@link #getLong(String, long)} with 0 as default value
+     * @param key key to get value
+     * @return long value corresponding to the provided key or 0
+     */
+    public long getLong(@NotNull String key) {
+        return getLong(key, 0L);
+    }
+
+    /**
+     * Allocation-free alternative to "getAsJavaValue(key, JSONValueType.DOUBLE)".
+     * Takes the value from the config, then from the default config, and if none of them contains
+     * a number under the provided key, returns provided default value
+     * @param key key to get value
+     * @param def default value
+     * @return double value corresponding to the provided key or default value
+     * @see JSONValueType#DOUBLE
+     */
+    public double getDouble(@NotNull String key, double def) {
+        var n = getNumber(key);
+        return n != null ? n.doubleValue() : def;
+    }
+
+    /**
+     * Same as {@link #getDouble(String, double)} with 0 as default value
+     * @param key key to get value
+     * @return double value corresponding to the provided key or 0
+     */
+    public double getDouble(@NotNull String key) {
+        return getDouble(key, 0D);
+    }
+
+    /**
+     * Allocation-free alternative to "getAsJavaValue(key, JSONValueType.BOOL)".
+     * Takes the value from the config, then from the default config, and if none of them contains
+     * a boolean under the provided key, returns provided default value
+     * @param key key to get value
+     * @param def default value
+     * @return boolean value corresponding to the provided key or default value
+     * @see JSONValueType#BOOL
+     */
+    public boolean getBoolean(@NotNull String key, boolean def) {
+        var val = lookup(key);
+        if (val != null && val.value() instanceof Boolean b)
+            return b;
+        return findRaw(key, Boolean.class) instanceof Boolean b ? b : def;
+    }
+
+    /**
+     * Same as {@link #getBoolean(String, boolean)} with false as default value
+     * @param key key to get value
+     * @return boolean value corresponding to the provided key or false
+     */
+    public boolean getBoolean(@NotNull String key) {
+        return getBoolean(key, false);
+    }
+
+    /**
+     * Returns wrapped nested value from the config the provided path points to
+     * @param path compiled path to the value
+     * @return wrapped value from the config the path points to
+     * @see ConfigPath#compile(String)
+     */
+    public JSONValue get(@NotNull ConfigPath path) {
+        return JSONValue.of(path.resolve(this.config));
+    }
+
+    /**
+     * Returns wrapped nested value from the config the provided path points to if the config contains it,
+     * otherwise returns value from default config the same path points to
+     * @param path compiled path to the value
+     * @return wrapped value from the config or from the default config
+     */
+    public JSONValue getOrDefault(@NotNull ConfigPath path) {
+        var val = path.resolve(view());
+        return JSONValue.of(val != null ? val : findRaw(path, Object.class));
+    }
+
+    /**
+     * Same as {@link #getAsJavaValue(String, IJSONValueType)}, but for nested values
+     * @param path compiled path to the value
+     * @param type converter
+     * @return value the path points to or value from default config or null
+     * @param <T> type of required value
+     */
+    public <T> T getAsJavaValue(@NotNull ConfigPath path, @NotNull IJSONValueType<T> type) {
+        var converted = type.convert(path.resolve(view()), null);
+        if (converted != null)
+            return converted;
+        var layers = this.overlays;
+        Map<String, JSONValue> layer;
+        for (int i = 0; (layer = layer(i, layers)) != null; i++)
+            if ((converted = type.convert(path.resolve(layer), null)) != null)
+                return converted;
+        return null;
+    }
+
+    /**
+     * Same as {@link #getInt(String, int)}, but for nested values
+     * @param path compiled path to the value
+     * @param def default value
+     * @return int value the path points to or default value
+     */
+    public int getInt(@NotNull ConfigPath path, int def) {
+        var d = path.resolveCompactNumber(view());
+        if (!Double.isNaN(d))
+            return (int) d;
+        var n = getNumber(path);
+        return n != null ? n.intValue() : def;
+    }
+
+    /**
+     * Same as {@link #getLong(String, long)}, but for nested values
+     * @param path compiled path to the value
+     * @param def default value
+     * @return long value the path points to or default value
+     */
+    public long getLong(@NotNull ConfigPath path, long def) {
+        var d = path.resolveCompactNumber(view());
+        if (!Double.isNaN(d))
+            return (long) d;
+        var n = getNumber(path);
+        return n != null ? n.longValue() : def;
+    }
+
+    /**
+     * Same as {@link #getDouble(String, double)}, but for nested values
+     * @param path compiled path to the value
+     * @param def default value
+     * @return double value the path points to or default value
+     */
+    public double getDouble(@NotNull ConfigPath path, double def) {
+        var d = path.resolveCompactNumber(view());
+        if (!Double.isNaN(d))
+            return d;
+        var n = getNumber(path);
+        return n != null ? n.doubleValue() : def;
+    }
+
+    /**
+     * Same as {@link #getBoolean(String, boolean)}, but for nested values
+     * @param path compiled path to the value
+     * @param def default value
+     * @return boolean value the path points to or default value
+     */
+    public boolean getBoolean(@NotNull ConfigPath path, boolean def) {
+        if (path.resolve(view()) instanceof Boolean b)
+            return b;
+        return findRaw(path, Boolean.class) instanceof Boolean b ? b : def;
+    }
+
+    /**
+     * Same as {@link #getNumber(String)}, but for nested values. Boxes numbers of compact nodes, so the getters
+     * try {@link ConfigPath#resolveCompactNumber(Map)} first
+     * @param path compiled path to the value
+     * @return decoded number or null
+     */
+    private @Nullable Number getNumber(@NotNull ConfigPath path) {
+        if (path.resolve(view()) instanceof Number n)
+            return n;
+        return findRaw(path, Number.class) instanceof Number n ? n : null;
+    }
+
+    /**
+     * Creates an instance of the given record or class from the config: keys are mapped onto record components
+     * or fields with the same names, and nested objects are bound recursively. Values are taken from the highest
+     * layer, then from the default config. The binding plan of a class is built once and reused, so binding again
+     * after {@link #reload()} is cheap
+     * @param type record or class with no-arg constructor
+     * @return new bound instance
+     * @param <T> bound type
+     * @throws IllegalArgumentException if the class cannot be bound
+     */
+    public <T> @NotNull T bind(@NotNull Class<T> type) {
+        return ConfigBinder.bind(type, key -> {
+            var val = lookup(key);
+            return val != null ? val.value() : ConfigBinder.MISSING;
+        });
     }
 
     /**
      * Puts provided value to the config under the given key.
-     * After using this method, you should call {@link #saveConfig()} function to save all changes to the config file
+     * After using this method, you should call {@link #saveConfig()} function to save all changes to the config file.
+     * Each call copies only the path to the changed entry, so it costs O(log n) however big the config is
      * @param key key which will represent provided value
      * @param value value to be stored
      */
     public void putInConfig(@NotNull String key, JSONValue value) {
-        this.config.put(key, value);
-        JSONConfig4Java.LOGGER.debug("Config was updated in program memory. Please, save it to file via saveConfig function");
+        edit(config -> config.put(key, value), Collections.singleton(key));
+        conversions.remove(key);
     }
 
     /**
@@ -329,79 +875,303 @@ public class ConfigWrapper {
      * @param toPut values to put
      */
     public void putAllInConfig(@NotNull Map<String, JSONValue> toPut) {
-        this.config.putAll(toPut);
+        edit(config -> config.putAll(toPut), toPut.keySet());
+        conversions.keySet().removeAll(toPut.keySet());
+    }
+
+    /**
+     * Applies a batch of changes to the config.
+     * The changes are applied to an editor of the current persistent snapshot, the edited snapshot then
+     * replaces the current one atomically, so readers see either all changes or none of them.
+     * Concurrent writers are serialized.
+     * After using this method, you should call {@link #saveConfig()} to save all changes to the config file
+     * @param changes procedure that modifies the given mutable config map
+     */
+    public void edit(@NotNull Consumer<Map<String, JSONValue>> changes) {
+        edit(changes, null);
+    }
+
+    /**
+     * Same as {@link #edit(Consumer)}, but only the given keys are updated in the flattened view of the layers
+     * @param changes procedure that modifies the given mutable config map
+     * @param keys keys changed by the procedure, null if they are unknown
+     */
+    private void edit(@NotNull Consumer<Map<String, JSONValue>> changes, @Nullable Collection<String> keys) {
+        synchronized (writeLock) {
+            // a memory-mapped config is decoded completely by the first change
+            var editor = PersistentHashMap.of(this.config).editor();
+            changes.accept(editor);
+            this.config = editor.toPersistent();
+            refreshResolved(keys);
+        }
+        modifications.incrementAndGet();
         JSONConfig4Java.LOGGER.debug("Config was updated in program memory. Please, save it to file via saveConfig function");
     }
 
     /**
-     * This method saves the {@link #config} to the config file
+     * Re-reads the config file and the added layers (default config isn't touched)
+     * and atomically replaces them with their content. If the config file cannot be read or parsed,
+     * or it doesn't match the schema, nothing is changed. Changes that weren't saved yet are discarded with a warning
+     * @return keys whose values were added, removed or changed by the reload in the config or in the layers
+     * @see #watch(ConfigChangeListener)
+     */
+    public @NotNull Set<String> reload() {
+        Map<String, JSONValue> loaded;
+        try {
+            loaded = readConfig();
+        } catch (IOException | JsonParseException e) {
+            JSONConfig4Java.LOGGER.error("Failed to reload [" + configFile.getPath() + "] config file", e);
+            return Set.of();
+        }
+        if (!isValid(loaded))
+            return Set.of();
+        var loadedOverlays = layerFiles.isEmpty() ? this.overlays : loadOverlays();
+        synchronized (writeLock) {
+            var changed = changedKeys(this.config, loaded);
+            var oldOverlays = this.overlays;
+            for (int i = 0; i < oldOverlays.size(); i++)
+                changed.addAll(changedKeys(oldOverlays.get(i), loadedOverlays.get(i)));
+            this.config = snapshotOf(loaded);
+            this.overlays = loadedOverlays;
+            refreshResolved(changed);
+            conversions.clear();
+            synchronized (saveLock) {
+                if (savedModifications >= 0 && modifications.get() != savedModifications)
+                    JSONConfig4Java.LOGGER.warn("Unsaved changes of [" + configFile.getPath() + "] were discarded by reload");
+                savedModifications = modifications.incrementAndGet();
+            }
+            JSONConfig4Java.LOGGER.debug(() -> "Config was reloaded from [" + configFile.getPath() + "], changed keys: " + changed);
+            return changed;
+        }
+    }
+
+    /**
+     * @param old previous content of a layer
+     * @param loaded new content of the layer
+     * @return mutable set of keys that were added, removed or whose values were changed
+     */
+    private static @NotNull Set<String> changedKeys(@NotNull Map<String, JSONValue> old, @NotNull Map<String, JSONValue> loaded) {
+        if (old instanceof MappedConfig oldMapped && loaded instanceof MappedConfig newMapped)
+            return MappedConfig.changedKeys(oldMapped, newMapped);
+        var changed = new HashSet<String>();
+        for (var entry : loaded.entrySet())
+            if (!Objects.equals(old.get(entry.getKey()), entry.getValue()))
+                changed.add(entry.getKey());
+        for (var key : old.keySet())
+            if (!loaded.containsKey(key))
+                changed.add(key);
+        return changed;
+    }
+
+    /**
+     * Sets a runtime override: the value is returned by all "OrDefault" and "getAs..." getters instead of
+     * the values from the config and the other layers. Overrides aren't saved to the config file
+     * @param key key to override
+     * @param value value of the override
+     * @see #removeOverride(String)
+     */
+    public void setOverride(@NotNull String key, @NotNull JSONValue value) {
+        synchronized (writeLock) {
+            this.overrides.put(key, value);
+            refreshResolved(Collections.singleton(key));
+        }
+        conversions.remove(key);
+    }
+
+    /**
+     * Removes the runtime override of the given key
+     * @param key overridden key
+     * @see #setOverride(String, JSONValue)
+     */
+    public void removeOverride(@NotNull String key) {
+        synchronized (writeLock) {
+            if (this.overrides.remove(key) == null)
+                return;
+            refreshResolved(Collections.singleton(key));
+        }
+        conversions.remove(key);
+    }
+
+    /**
+     * @return a copy of the runtime overrides
+     */
+    public @NotNull Map<String, JSONValue> overrides() {
+        return Map.copyOf(this.overrides);
+    }
+
+    /**
+     * Returns the values of all layers flattened into one map: each key has the value from the highest layer
+     * that contains it
+     * @return unmodifiable flattened config
+     * @see ConfigWrapperBuilder#addLayer(File)
+     */
+    public @NotNull Map<String, JSONValue> resolvedConfig() {
+        var view = this.resolved;
+        return view != null ? view : Collections.unmodifiableMap(flatten());
+    }
+
+    /**
+     * Starts watching the config file and the layer files for changes. Every time one of them is changed on disk,
+     * the config and the layers are reloaded and the listener receives the set of changed keys
+     * @param listener listener that will be notified about changes
+     * @return started watcher, close it to stop watching
+     * @throws IOException if the config directory cannot be watched
+     * @see ConfigWatcher
+     */
+    public @NotNull ConfigWatcher watch(@NotNull ConfigChangeListener listener) throws IOException {
+        return watch(ConfigWatcher.DEFAULT_DEBOUNCE).addListener(listener);
+    }
+
+    /**
+     * Starts watching the config file and the layer files for changes without any listeners
+     * @param debounce time the files should stay untouched before it's reloaded
+     * @return started watcher, close it to stop watching
+     * @throws IOException if the config directory cannot be watched
+     * @see ConfigWatcher
+     */
+    public @NotNull ConfigWatcher watch(@NotNull Duration debounce) throws IOException {
+        return new ConfigWatcher(this, debounce);
+    }
+
+    /**
+     * Checks whether the config file is in the state the last {@link #saveConfig()} left it in
+     * @param stamp current stamp of the config file
+     * @return true if the file was last written by this wrapper
+     */
+    boolean isWrittenByWrapper(@NotNull FileStamp stamp) {
+        synchronized (saveLock) {
+            return stamp.equals(writtenStamp);
+        }
+    }
+
+    /**
+     * @return files of the layers added above the config file, in ascending priority
+     * @see ConfigWrapperBuilder#addLayer(File)
+     */
+    public @NotNull List<File> layerFiles() {
+        return layerFiles;
+    }
+
+    /**
+     * @return config file wrapped by this wrapper
+     */
+    public @NotNull File configFile() {
+        return configFile;
+    }
+
+    /**
+     * This method saves the {@link #config} to the config file.
+     * The config is written to a temporary file, which is forced to disk and atomically moved over the config file,
+     * so the config file is never left missing or half-written. If the config wasn't changed since the last save,
+     * nothing is written
      * @return true if method can save changes to the config file, false otherwise
      */
     public boolean saveConfig() {
-        JSONConfig4Java.LOGGER.debug("Trying to save config to file...");
-        JSONConfig4Java.LOGGER.doWithoutLogging(this::delete);
-        var temp = new LinkedHashMap<>();
-        var keys = new ArrayList<>(config.keySet().stream().toList());
-        Collections.reverse(keys);
-        for (var key : keys)
-            temp.put(key, getRaw(key));
-        try {
-            createConfig(configFile.getPath(), temp);
-            JSONConfig4Java.LOGGER.debug("Successfully saved config to file");
-            return true;
-        } catch (IOException ioe) {
-            JSONConfig4Java.LOGGER.error("Unable to save config to the file!", ioe);
-            return false;
+        synchronized (saveLock) {
+            var version = modifications.get();
+            if (version == savedModifications && configFile.exists()) {
+                JSONConfig4Java.LOGGER.debug("Config wasn't changed since the last save");
+                return true;
+            }
+            JSONConfig4Java.LOGGER.debug("Trying to save config to file...");
+            try {
+                ConfigWriter.writeAtomically(configFile.toPath(), this.config, serializer);
+                savedModifications = version;
+                writtenStamp = FileStamp.of(configFile.toPath());
+                JSONConfig4Java.LOGGER.debug("Successfully saved config to file");
+                return true;
+            } catch (IOException | RuntimeException e) {
+                JSONConfig4Java.LOGGER.error("Unable to save config to the file!", e);
+                return false;
+            }
         }
     }
 
     /**
-     * This method puts provided value to the config under the given key and immediately saves changes to the config file
+     * Immediately saves the config if a write-behind save is pending
+     * @return true if there was nothing to save or the config was saved successfully
+     * @see ConfigWrapperBuilder#setWriteBehind(Duration)
+     */
+    public boolean flush() {
+        return writeBehind == null || writeBehind.flush();
+    }
+
+    /**
+     * Saves the config right away, or schedules the save in write-behind mode
+     * @return result of {@link #saveConfig()}, or true if the save was scheduled
+     */
+    private boolean requestSave() {
+        if (writeBehind == null)
+            return saveConfig();
+        writeBehind.schedule();
+        return true;
+    }
+
+    /**
+     * This method puts provided value to the config under the given key and immediately saves changes to the config file.
+     * In write-behind mode the save is deferred and coalesced with other saves
      * @param key key which will represent provided value
      * @param value value to be stored
-     * @return true if method can save changes to the config file, false otherwise
+     * @return true if method can save changes to the config file (or has scheduled the save), false otherwise
      * @see #putInConfig(String, JSONValue)
      * @see #saveConfig()
      */
     public boolean putInConfigAndSave(@NotNull String key, JSONValue value) {
         putInConfig(key, value);
-        return saveConfig();
+        return requestSave();
     }
 
     /**
-     * Puts all provided values to the config and immediately saves changes to the config file
+     * Puts all provided values to the config and immediately saves changes to the config file.
+     * In write-behind mode the save is deferred and coalesced with other saves
      * @param toPut values to put
-     * @return true if method can save changes to the config file, false otherwise
+     * @return true if method can save changes to the config file (or has scheduled the save), false otherwise
      * @see #putInConfig(String, JSONValue)
      * @see #saveConfig()
      */
     public boolean putAllInConfigAndSave(@NotNull Map<String, JSONValue> toPut) {
         putAllInConfig(toPut);
-        return saveConfig();
+        return requestSave();
     }
 
     /**
-     * Creates a copy of whole json config
+     * Creates a copy of whole json config. The copy shares the persistent config maps and the resolved view
+     * of the layers with this wrapper, so the size of the config doesn't matter, and changes of either wrapper
+     * copy only the changed paths
      * @return a copy of json config
      */
     public @NotNull ConfigWrapper copy() {
-        return new ConfigWrapper(this.config, this.defaultConfig, this.configFile);
+        // the layers and their resolved view are changed together under the write lock
+        synchronized (writeLock) {
+            return new ConfigWrapper(this.config, this.defaultConfig, this.configFile, this.memoryMapped, this.serializer, this.schema, this.snapshots, this.writeBehindWindow,
+                    this.layerFiles, this.overlays, this.overrides, this.resolved);
+        }
     }
 
     /**
-     * Creates a copy of the {@link #config} and returns it
-     * @return a copy of the config
+     * Returns the current immutable snapshot of the {@link #config} without copying it.
+     * Later changes of the config don't affect the returned map
+     * @return unmodifiable snapshot of the config
      */
     public @NotNull Map<String, JSONValue> config() {
-        return Map.copyOf(this.config);
+        return this.config;
     }
 
     /**
-     * Creates a copy of the {@link #defaultConfig} and returns it
-     * @return a copy of the default config
+     * Returns the {@link #defaultConfig} without copying it
+     * @return unmodifiable default config
      */
     public @NotNull Map<String, JSONValue> defaultConfig() {
-        return Map.copyOf(this.defaultConfig);
+        return this.defaultConfig;
+    }
+
+    /**
+     * Checks whether the wrapper memory-maps its config file
+     * @return {@link #memoryMapped}
+     * @see ConfigWrapperBuilder#setMemoryMapped(boolean)
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
     }
 
     /**
@@ -413,7 +1183,7 @@ public class ConfigWrapper {
     }
 
     /**
-     * Deletes the config file from the config files directory
+     * Deletes the config file (and its snapshot) from the config files directory
      * @return value of File.delete() function
      */
     public boolean delete() {
@@ -421,6 +1191,8 @@ public class ConfigWrapper {
             JSONConfig4Java.LOGGER.warn("Config file [" + configFile.getPath() + "] was already deleted!");
             return false;
         }
+        if (snapshots)
+            ConfigSnapshot.snapshotPath(configFile.toPath()).toFile().delete();
         JSONConfig4Java.LOGGER.warn("Config file [" + configFile.getName() + "] was deleted. Please, restart the game to regenerate it!");
         return configFile.delete();
     }
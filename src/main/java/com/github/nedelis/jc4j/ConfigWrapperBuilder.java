@@ -0,0 +1,168 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class helps to create {@link ConfigWrapper} with non-default properties
+ */
+
+@SuppressWarnings("unused")
+public final class ConfigWrapperBuilder {
+
+    final File configFile;
+    File defaultConfigFile = null;
+    Map<?, ?> defaultConfigMap = Map.of();
+    boolean memoryMapped = false;
+    Duration writeBehindWindow = null;
+    ConfigSerializer serializer = GsonConfigSerializer.PRETTY;
+    ConfigSchema schema = null;
+    boolean snapshots = false;
+    final List<File> layerFiles = new ArrayList<>();
+
+    /**
+     * Creates new builder for the given config file
+     * @param configFile config file to be wrapped
+     */
+    public ConfigWrapperBuilder(@NotNull File configFile) {
+        this.configFile = configFile;
+    }
+
+    /**
+     * Creates new builder for the config file with the given name in the given directory
+     * @param pathToConfigDir path to config(-s) directory
+     * @param configFileName config file name without extension
+     */
+    public ConfigWrapperBuilder(@NotNull String pathToConfigDir, @NotNull String configFileName) {
+        this(new File(pathToConfigDir + File.separator + configFileName + ".json"));
+    }
+
+    /**
+     * Specifies the default config file. Its content is used to generate the config file if it doesn't exist
+     * @param defaultConfigFile default config file
+     * @return current builder with reassigned default config
+     */
+    public ConfigWrapperBuilder setDefaultConfig(@NotNull File defaultConfigFile) {
+        this.defaultConfigFile = defaultConfigFile;
+        this.defaultConfigMap = null;
+        return this;
+    }
+
+    /**
+     * Specifies the default config values. They are used to generate the config file if it doesn't exist
+     * @param defaultConfigMap default config map (default config values)
+     * @return current builder with reassigned default config
+     */
+    public ConfigWrapperBuilder setDefaultConfig(@NotNull Map<?, ?> defaultConfigMap) {
+        this.defaultConfigMap = defaultConfigMap;
+        this.defaultConfigFile = null;
+        return this;
+    }
+
+    /**
+     * Adds a read-only config layer above the config file, e.g. a host-specific config.
+     * A value is taken from the highest layer that contains its key: runtime overrides, then added layers
+     * (the last added is the highest), then the config file and then the default config.
+     * Layers are reloaded together with the config file. Missing layer files are skipped
+     * @param layerFile json file of the layer
+     * @return current builder with the added layer
+     * @see ConfigWrapper#setOverride(String, com.github.nedelis.jc4j.jsonvalue.JSONValue)
+     */
+    public ConfigWrapperBuilder addLayer(@NotNull File layerFile) {
+        this.layerFiles.add(layerFile);
+        return this;
+    }
+
+    /**
+     * Adds the layer of the given profile (e.g. environment): the file "name.profile.json"
+     * next to the config file "name.json"
+     * @param profile name of the profile
+     * @return current builder with the added layer
+     * @see #addLayer(File)
+     */
+    public ConfigWrapperBuilder addProfile(@NotNull String profile) {
+        var name = configFile.getName();
+        var base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        return addLayer(new File(configFile.getAbsoluteFile().getParentFile(), base + "." + profile + ".json"));
+    }
+
+    /**
+     * Enables or disables memory-mapped mode, meant for big read-mostly configs. In this mode the config file is
+     * memory-mapped, only its top-level keys are indexed at load time, and each value is decoded the first time
+     * it's read. The first change of the config decodes it completely. While the file is mapped, it should only be
+     * replaced as a whole (e.g. moved over), not rewritten in place. By default, memory-mapped mode is disabled
+     * @param memoryMapped whether the config file should be memory-mapped and decoded lazily
+     * @return current builder with reassigned mode
+     */
+    public ConfigWrapperBuilder setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Enables write-behind mode: "put...AndSave" methods don't write the file right away, but schedule a save
+     * after the given window, and all changes made within the window are written by that single save.
+     * Pending saves can be forced with {@link ConfigWrapper#flush()} and are flushed at shutdown.
+     * Saves run on a background thread, that reads the current immutable snapshot of the config
+     * @param window time to collect changes before saving them
+     * @return current builder with reassigned mode
+     */
+    public ConfigWrapperBuilder setWriteBehind(@NotNull Duration window) {
+        this.writeBehindWindow = window;
+        return this;
+    }
+
+    /**
+     * Specifies the serialisation backend of the config, default config and layer files.
+     * By default, {@link GsonConfigSerializer#PRETTY} is used; {@link GsonConfigSerializer#COMPACT} writes smaller files
+     * for configs that aren't edited by hand. Memory-mapped mode works only with the Gson serializers
+     * @param serializer thread-safe serializer, usually shared between wrappers
+     * @return current builder with reassigned serializer
+     */
+    public ConfigWrapperBuilder setSerializer(@NotNull ConfigSerializer serializer) {
+        this.serializer = serializer;
+        return this;
+    }
+
+    /**
+     * Specifies the schema the config file is validated with, over the default config, every time it's loaded.
+     * If the config file doesn't match the schema at start, all violations are logged, the config is marked
+     * as broken and the default config is used; on {@link ConfigWrapper#reload()} the invalid file is rejected
+     * and the current config is kept
+     * @param schema compiled schema of the config
+     * @return current builder with reassigned schema
+     */
+    public ConfigWrapperBuilder setSchema(@NotNull ConfigSchema schema) {
+        this.schema = schema;
+        return this;
+    }
+
+    /**
+     * Enables or disables snapshots: parsed config, default config and layer files are cached in binary
+     * "*.json.snapshot" files next to them, and an unchanged file (same size, modification time and content hash)
+     * is loaded from its memory-mapped snapshot instead of being parsed again. Meant for short-lived programs,
+     * that load the same configs at every start. By default, snapshots are disabled
+     * @param snapshots whether parsed files should be cached in snapshots
+     * @return current builder with reassigned mode
+     */
+    public ConfigWrapperBuilder setSnapshotCache(boolean snapshots) {
+        this.snapshots = snapshots;
+        return this;
+    }
+
+    /**
+     * Builds a new config wrapper, loading (or generating) its config file
+     * @return new config wrapper with specified properties
+     */
+    @Contract(" -> new")
+    public @NotNull ConfigWrapper build() {
+        return new ConfigWrapper(this);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Streaming config serializer. Writes config values with Gson's {@link JsonWriter} straight from the config map,
+ * the output is the same as the Gson output with serialized nulls, pretty-printed or compact.
+ * Files are written atomically: the content goes to a temporary file in the same directory,
+ * which is forced to disk and then moved over the target file
+ */
+final class ConfigWriter {
+
+    /**
+     * Used only for values that aren't json values (custom objects put into the config)
+     */
+    private static final Gson GSON = new Gson();
+
+    private ConfigWriter() {
+    }
+
+    /**
+     * Atomically replaces the content of the given file with the given config values
+     * @param path file to write
+     * @param content config values
+     * @param serializer serializer of the content
+     * @throws IOException if the file cannot be written
+     */
+    static void writeAtomically(@NotNull Path path, @NotNull Map<?, ?> content, @NotNull ConfigSerializer serializer) throws IOException {
+        var target = path.toAbsolutePath();
+        var temp = target.resolveSibling(target.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            try (var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+                 var writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+                serializer.write(content, writer);
+                writer.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes the given config values as a json object
+     * @param content config values, {@link JSONValue}s are unwrapped
+     * @param writer destination
+     * @param pretty whether the json is indented with two spaces or written on one line
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(@NotNull Map<?, ?> content, @NotNull Writer writer, boolean pretty) throws IOException {
+        var json = new JsonWriter(writer);
+        if (pretty)
+            json.setIndent("  ");
+        json.setSerializeNulls(true);
+        writeValue(json, content);
+        json.flush();
+    }
+
+    private static void writeValue(@NotNull JsonWriter json, @Nullable Object value) throws IOException {
+        if (value instanceof JSONValue jsonValue)
+            value = jsonValue.value();
+
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof String str) {
+            json.value(str);
+        } else if (value instanceof Boolean bool) {
+            json.value(bool);
+        } else if (value instanceof Number number) {
+            json.value(number);
+        } else if (value instanceof Map<?, ?> map) {
+            json.beginObject();
+            for (var entry : map.entrySet()) {
+                json.name(String.valueOf(entry.getKey()));
+                writeValue(json, entry.getValue());
+            }
+            json.endObject();
+        } else if (value instanceof Collection<?> collection) {
+            json.beginArray();
+            for (var element : collection)
+                writeValue(json, element);
+            json.endArray();
+        } else {
+            GSON.toJson(value, value.getClass(), json);
+        }
+    }
+
+}
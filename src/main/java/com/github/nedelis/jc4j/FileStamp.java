@@ -0,0 +1,31 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Size and modification time of a file, used to tell whether the file was changed
+ * @param size size of the file in bytes
+ * @param modified modification time of the file in milliseconds
+ */
+record FileStamp(long size, long modified) {
+
+    /**
+     * @param file file to check
+     * @return current stamp of the file or null if it doesn't exist at the moment
+     */
+    static @Nullable FileStamp of(@NotNull Path file) {
+        try {
+            var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new FileStamp(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Default serialisation backend, built on Gson's streaming reader and writer. It keeps no state between calls,
+ * and the Gson instance used for custom objects is created once and shared, so both instances can be used
+ * by any number of wrappers and threads
+ */
+public final class GsonConfigSerializer implements ConfigSerializer {
+
+    /**
+     * Writes configs indented with two spaces, the default format of config files
+     */
+    public static final GsonConfigSerializer PRETTY = new GsonConfigSerializer(true);
+    /**
+     * Writes configs on one line without any whitespace, meant for configs that are managed by programs rather than people
+     */
+    public static final GsonConfigSerializer COMPACT = new GsonConfigSerializer(false);
+
+    private final boolean pretty;
+
+    private GsonConfigSerializer(boolean pretty) {
+        this.pretty = pretty;
+    }
+
+    @Override
+    public @NotNull Map<String, JSONValue> read(@NotNull Reader reader) throws IOException {
+        return ConfigReader.read(reader);
+    }
+
+    @Override
+    public void write(@NotNull Map<?, ?> content, @NotNull Writer writer) throws IOException {
+        ConfigWriter.write(content, writer, pretty);
+    }
+
+}
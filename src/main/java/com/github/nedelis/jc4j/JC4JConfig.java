@@ -0,0 +1,48 @@
+package com.github.nedelis.jc4j;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface as a typed view of a config. The annotation processor from the "processor" module
+ * generates its implementation, which reads every value straight from a {@link ConfigWrapper}
+ * with the matching getter, so no reflection is involved at runtime:
+ * <pre>
+ * &#64;JC4JConfig
+ * interface DbConfig {
+ *     int poolSize();
+ *     &#64;JC4JConfig.Key("pool.timeout") long timeout();
+ * }
+ *
+ * DbConfig db = new DbConfigImpl(configWrapper);
+ * </pre>
+ * Each abstract method without parameters reads the config key named after the method. Supported return types are
+ * primitives, String, Integer, Double, Boolean, {@link com.github.nedelis.jc4j.jsonvalue.JSONValue},
+ * List&lt;JSONValue&gt; and Map&lt;String, JSONValue&gt;
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface JC4JConfig {
+
+    /**
+     * @return simple name of the generated class, "&lt;interface name&gt;Impl" if empty
+     */
+    String className() default "";
+
+    /**
+     * Reads the value of the method from the given {@link ConfigPath} instead of the key named after the method
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @Target(ElementType.METHOD)
+    @interface Key {
+
+        /**
+         * @return path to the value
+         */
+        String value();
+
+    }
+
+}
@@ -0,0 +1,410 @@
+package com.github.nedelis.jc4j;
+
+import com.github.nedelis.jc4j.jsonvalue.JSONTreeBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Read-only config map over a memory-mapped config file.
+ * <p>
+ * Creating it scans and validates the file once and builds only a compact index of the top-level keys and the byte ranges
+ * of their values. A value is decoded the first time it is requested and cached afterwards, so start-up
+ * time and heap usage depend on the keys that are actually read, not on the size of the file.
+ * Only strict json is indexed, lenient documents are rejected and loaded eagerly by the wrapper.
+ * The file must not be modified in place while it is mapped
+ * @see ConfigWrapperBuilder#setMemoryMapped(boolean)
+ */
+final class MappedConfig extends AbstractMap<String, JSONValue> {
+
+    private final MappedByteBuffer buffer;
+    private final String[] keys;
+    private final int[] starts;
+    private final int[] ends;
+    /**
+     * Open addressing table of key indexes + 1, 0 marks an empty slot
+     */
+    private final int[] table;
+    /**
+     * Decoded values, filled on first access. Racing threads may decode the same value twice,
+     * which is harmless because {@link JSONValue} is immutable
+     */
+    private final JSONValue[] values;
+    private Set<Entry<String, JSONValue>> entrySet;
+
+    private MappedConfig(@NotNull MappedByteBuffer buffer, @NotNull List<String> keys, @NotNull List<int[]> ranges) {
+        this.buffer = buffer;
+        this.keys = keys.toArray(String[]::new);
+        this.starts = new int[this.keys.length];
+        this.ends = new int[this.keys.length];
+        for (int i = 0; i < this.keys.length; i++) {
+            starts[i] = ranges.get(i)[0];
+            ends[i] = ranges.get(i)[1];
+        }
+        this.values = new JSONValue[this.keys.length];
+        this.table = new int[Math.max(2, Integer.highestOneBit(Math.max(1, this.keys.length)) << 2)];
+        for (int i = 0; i < this.keys.length; i++) {
+            var slot = hash(this.keys[i]);
+            while (table[slot] != 0)
+                slot = (slot + 1) & (table.length - 1);
+            table[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Maps the given file and indexes its top-level keys
+     * @param path path to the config file
+     * @return lazily decoded config
+     * @throws IOException if the file cannot be mapped, it isn't a strict json object, a top-level key
+     *                     is repeated or there is data after the object
+     */
+    static @NotNull MappedConfig open(@NotNull Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("[" + path + "] is too large to be memory-mapped");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        var keys = new ArrayList<String>();
+        var ranges = new ArrayList<int[]>();
+        var index = new HashSet<String>();
+        var pos = skipWhitespace(buffer, 0);
+        if (pos == buffer.limit())
+            return new MappedConfig(buffer, keys, ranges);
+        pos = expect(buffer, pos, '{');
+        pos = skipWhitespace(buffer, pos);
+        if (peek(buffer, pos) == '}') {
+            checkEnd(buffer, pos + 1);
+            return new MappedConfig(buffer, keys, ranges);
+        }
+        while (true) {
+            var keyStart = skipWhitespace(buffer, pos);
+            pos = skipName(buffer, keyStart);
+            var key = decodeKey(buffer, keyStart, skipString(buffer, keyStart));
+            var valueStart = skipWhitespace(buffer, pos);
+            pos = skipValue(buffer, valueStart);
+            // duplicate keys are rejected, like by the streaming parser
+            if (!index.add(key))
+                throw new MalformedJsonException("Duplicate key '" + key + "' at " + keyStart);
+            keys.add(key);
+            ranges.add(new int[]{valueStart, pos});
+            pos = skipWhitespace(buffer, pos);
+            if (peek(buffer, pos) == '}')
+                break;
+            pos = expect(buffer, pos, ',');
+        }
+        checkEnd(buffer, pos + 1);
+        return new MappedConfig(buffer, keys, ranges);
+    }
+
+    private int hash(@NotNull Object key) {
+        var h = key.hashCode();
+        return (h ^ (h >>> 16)) & (table.length - 1);
+    }
+
+    private int indexOf(@Nullable Object key) {
+        if (key == null)
+            return -1;
+        var slot = hash(key);
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            if (keys[entry - 1].equals(key))
+                return entry - 1;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    private @NotNull JSONValue valueAt(int index) {
+        var value = values[index];
+        if (value == null) {
+            var json = new JsonReader(new StringReader(slice(starts[index], ends[index])));
+            json.setLenient(true);
+            try {
+                value = JSONValue.of(ConfigReader.readValue(json, new JSONTreeBuilder()));
+            } catch (IOException e) {
+                // values are validated while indexing, so the file was modified in place
+                throw new IllegalStateException("Failed to decode '" + keys[index] + "' from the mapped config", e);
+            }
+            values[index] = value;
+        }
+        return value;
+    }
+
+    private @NotNull String slice(int start, int end) {
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public JSONValue get(Object key) {
+        var index = indexOf(key);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public @NotNull Set<String> keySet() {
+        return Set.of(keys);
+    }
+
+    @Override
+    public @NotNull Set<Entry<String, JSONValue>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<String, JSONValue>> iterator() {
+                    return new Iterator<>() {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, JSONValue> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            var index = next++;
+                            return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Finds keys whose values differ between two mapped configs by comparing the raw bytes of the values,
+     * so nothing has to be decoded
+     * @param old previous config
+     * @param current new config
+     * @return keys that were added, removed or whose raw json changed
+     */
+    static @NotNull Set<String> changedKeys(@NotNull MappedConfig old, @NotNull MappedConfig current) {
+        var changed = new HashSet<String>();
+        for (int i = 0; i < current.keys.length; i++) {
+            var oldIndex = old.indexOf(current.keys[i]);
+            if (oldIndex < 0 || !old.rawEquals(oldIndex, current, i))
+                changed.add(current.keys[i]);
+        }
+        for (var key : old.keys)
+            if (!current.containsKey(key))
+                changed.add(key);
+        return changed;
+    }
+
+    private boolean rawEquals(int index, @NotNull MappedConfig other, int otherIndex) {
+        var length = ends[index] - starts[index];
+        if (length != other.ends[otherIndex] - other.starts[otherIndex])
+            return false;
+        return buffer.slice(starts[index], length).equals(other.buffer.slice(other.starts[otherIndex], length));
+    }
+
+    private static int peek(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        if (pos >= buffer.limit())
+            throw new MalformedJsonException("Unexpected end of the config at " + pos);
+        return buffer.get(pos);
+    }
+
+    private static int expect(@NotNull MappedByteBuffer buffer, int pos, char expected) throws MalformedJsonException {
+        if (peek(buffer, pos) != expected)
+            throw new MalformedJsonException("Expected '" + expected + "' at " + pos);
+        return pos + 1;
+    }
+
+    /**
+     * Checks that there is only whitespace after the root object
+     * @param pos position right after the root object
+     */
+    private static void checkEnd(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        pos = skipWhitespace(buffer, pos);
+        if (pos != buffer.limit())
+            throw new MalformedJsonException("Unexpected data after the root object at " + pos);
+    }
+
+    private static int skipWhitespace(@NotNull MappedByteBuffer buffer, int pos) {
+        while (pos < buffer.limit()) {
+            var b = buffer.get(pos);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t')
+                break;
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * @return position right after the closing quote of the string starting at the given position
+     */
+    private static int skipString(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        pos = expect(buffer, pos, '"');
+        while (true) {
+            var b = peek(buffer, pos++);
+            if (b == '"')
+                return pos;
+            if (b >= 0 && b < 0x20)
+                throw new MalformedJsonException("Unescaped control character at " + (pos - 1));
+            if (b != '\\')
+                continue;
+            var escaped = peek(buffer, pos++);
+            if (escaped == 'u') {
+                for (int i = 0; i < 4; i++)
+                    if (Character.digit(peek(buffer, pos++), 16) < 0)
+                        throw new MalformedJsonException("Malformed unicode escape at " + (pos - 1));
+            } else if ("\"\\/bfnrt".indexOf(escaped) < 0) {
+                throw new MalformedJsonException("Invalid escape at " + (pos - 1));
+            }
+        }
+    }
+
+    /**
+     * @return position right after the colon of the member name starting at the given position
+     */
+    private static int skipName(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        pos = skipString(buffer, skipWhitespace(buffer, pos));
+        return expect(buffer, skipWhitespace(buffer, pos), ':');
+    }
+
+    /**
+     * Skips and validates the json value starting at the given position. Nested values are tracked
+     * with a stack of open objects and arrays instead of recursion, so deep nesting can't overflow the stack
+     * @return position right after the json value
+     * @throws MalformedJsonException if the value isn't strict json
+     */
+    private static int skipValue(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        // set bits mark open objects, clear bits open arrays
+        var objects = new BitSet();
+        var depth = 0;
+        while (true) {
+            pos = skipWhitespace(buffer, pos);
+            var b = peek(buffer, pos);
+            if (b == '{' || b == '[') {
+                var object = b == '{';
+                objects.set(depth++, object);
+                pos = skipWhitespace(buffer, pos + 1);
+                if (peek(buffer, pos) != (object ? '}' : ']')) {
+                    if (object)
+                        pos = skipName(buffer, pos);
+                    continue;
+                }
+                pos++;
+                depth--;
+            } else {
+                pos = skipScalar(buffer, pos);
+            }
+            // the value is complete, it's followed by the next element or closes its containers
+            while (true) {
+                if (depth == 0)
+                    return pos;
+                pos = skipWhitespace(buffer, pos);
+                var object = objects.get(depth - 1);
+                var next = peek(buffer, pos++);
+                if (next == ',') {
+                    if (object)
+                        pos = skipName(buffer, pos);
+                    break;
+                }
+                if (next != (object ? '}' : ']'))
+                    throw new MalformedJsonException("Expected ',' or '" + (object ? '}' : ']') + "' at " + (pos - 1));
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * @return position right after the string, number or literal starting at the given position
+     * @throws MalformedJsonException if there is no valid scalar at the position
+     */
+    private static int skipScalar(@NotNull MappedByteBuffer buffer, int pos) throws MalformedJsonException {
+        var first = peek(buffer, pos);
+        if (first == '"')
+            return skipString(buffer, pos);
+        if (first == 't')
+            return skipLiteral(buffer, pos, "true");
+        if (first == 'f')
+            return skipLiteral(buffer, pos, "false");
+        if (first == 'n')
+            return skipLiteral(buffer, pos, "null");
+
+        var start = pos;
+        if (first == '-')
+            pos++;
+        if (pos < buffer.limit() && buffer.get(pos) == '0')
+            pos++;
+        else
+            pos = skipDigits(buffer, pos, start);
+        if (pos < buffer.limit() && buffer.get(pos) == '.')
+            pos = skipDigits(buffer, pos + 1, start);
+        if (pos < buffer.limit() && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E')) {
+            pos++;
+            if (pos < buffer.limit() && (buffer.get(pos) == '+' || buffer.get(pos) == '-'))
+                pos++;
+            pos = skipDigits(buffer, pos, start);
+        }
+        return pos;
+    }
+
+    /**
+     * @param start start of the value, for the error message
+     * @return position after one or more digits
+     */
+    private static int skipDigits(@NotNull MappedByteBuffer buffer, int pos, int start) throws MalformedJsonException {
+        var from = pos;
+        while (pos < buffer.limit() && buffer.get(pos) >= '0' && buffer.get(pos) <= '9')
+            pos++;
+        if (pos == from)
+            throw new MalformedJsonException("Invalid value at " + start);
+        return pos;
+    }
+
+    private static int skipLiteral(@NotNull MappedByteBuffer buffer, int pos, @NotNull String literal) throws MalformedJsonException {
+        for (int i = 0; i < literal.length(); i++)
+            if (peek(buffer, pos + i) != literal.charAt(i))
+                throw new MalformedJsonException("Invalid value at " + pos);
+        return pos + literal.length();
+    }
+
+    private static @NotNull String decodeKey(@NotNull MappedByteBuffer buffer, int start, int end) throws IOException {
+        var hasEscapes = false;
+        for (int i = start + 1; i < end - 1 && !hasEscapes; i++)
+            hasEscapes = buffer.get(i) == '\\';
+        if (!hasEscapes) {
+            var bytes = new byte[end - start - 2];
+            buffer.get(start + 1, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new JsonReader(new StringReader(new String(bytes, StandardCharsets.UTF_8))).nextString();
+    }
+
+}
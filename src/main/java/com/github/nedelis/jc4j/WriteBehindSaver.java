@@ -0,0 +1,82 @@
+package com.github.nedelis.jc4j;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces save requests of a {@link ConfigWrapper}: the first request schedules a save after the window,
+ * all requests that come in before the save runs are served by it. A failed save is retried after a delay
+ * that doubles with every failure. Pending saves are flushed at shutdown
+ * @see ConfigWrapperBuilder#setWriteBehind(Duration)
+ */
+final class WriteBehindSaver {
+
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "JC4J-WriteBehind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Set<WriteBehindSaver> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+        // failed saves schedule themselves again, so the hook works on a copy to try each save once
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> List.copyOf(PENDING).forEach(WriteBehindSaver::flush), "JC4J-WriteBehindFlush"));
+    }
+
+    private final ConfigWrapper wrapper;
+    private final long windowMillis;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * Failed saves in a row
+     */
+    private final AtomicInteger failures = new AtomicInteger();
+
+    WriteBehindSaver(@NotNull ConfigWrapper wrapper, @NotNull Duration window) {
+        this.wrapper = wrapper;
+        this.windowMillis = Math.max(0, window.toMillis());
+    }
+
+    /**
+     * Schedules a save, unless one is already pending
+     */
+    void schedule() {
+        schedule(windowMillis);
+    }
+
+    private void schedule(long delayMillis) {
+        if (scheduled.compareAndSet(false, true)) {
+            PENDING.add(this);
+            SCHEDULER.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Runs the pending save right away. If the save fails, it's scheduled again
+     * @return result of {@link ConfigWrapper#saveConfig()}, true if there was nothing to save
+     */
+    boolean flush() {
+        if (!scheduled.getAndSet(false))
+            return true;
+        PENDING.remove(this);
+        if (wrapper.saveConfig()) {
+            failures.set(0);
+            return true;
+        }
+        var delay = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(1, windowMillis) << Math.min(failures.getAndIncrement(), 16));
+        JSONConfig4Java.LOGGER.warn("Write-behind save of [" + wrapper.configFile().getPath() + "] failed, retrying in " + delay + " ms");
+        schedule(delay);
+        return false;
+    }
+
+}
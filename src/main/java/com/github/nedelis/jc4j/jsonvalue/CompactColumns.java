@@ -0,0 +1,78 @@
+package com.github.nedelis.jc4j.jsonvalue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Value storage of compact json nodes. Values are split into two columns: numbers are stored in a double array,
+ * everything else in an object array. A column is null if no value needs it, and if both columns are present,
+ * {@link #NUMBER} in the reference column marks values stored in the number column
+ * @see CompactJSONObject
+ * @see CompactJSONArray
+ */
+final class CompactColumns {
+
+    static final Object NUMBER = new Object();
+
+    final double[] numbers;
+    final Object[] refs;
+
+    private CompactColumns(double @Nullable [] numbers, Object @Nullable [] refs) {
+        this.numbers = numbers;
+        this.refs = refs;
+    }
+
+    /**
+     * Splits the given values into columns
+     * @param values values, doubles go to the number column
+     * @param size amount of values to take
+     * @return columns of the values
+     */
+    static @NotNull CompactColumns of(Object @NotNull [] values, int size) {
+        var numberCount = 0;
+        for (int i = 0; i < size; i++)
+            if (values[i] instanceof Double)
+                numberCount++;
+
+        double[] numbers = numberCount > 0 ? new double[size] : null;
+        Object[] refs = numberCount < size ? new Object[size] : null;
+        for (int i = 0; i < size; i++) {
+            if (values[i] instanceof Double d) {
+                numbers[i] = d;
+                if (refs != null)
+                    refs[i] = NUMBER;
+            } else {
+                refs[i] = values[i];
+            }
+        }
+        return new CompactColumns(numbers, refs);
+    }
+
+    /**
+     * Same as {@link #of(Object[], int)} for a list of values
+     * @param values values, doubles go to the number column
+     * @return columns of the values
+     */
+    static @NotNull CompactColumns of(@NotNull List<?> values) {
+        return of(values.toArray(), values.size());
+    }
+
+    static @Nullable Object get(double @Nullable [] numbers, Object @Nullable [] refs, int index) {
+        if (refs == null)
+            return numbers[index];
+        var ref = refs[index];
+        return ref == NUMBER ? (Object) numbers[index] : ref;
+    }
+
+    static double getDouble(double @Nullable [] numbers, Object @Nullable [] refs, int index, double def) {
+        if (refs == null)
+            return numbers[index];
+        var ref = refs[index];
+        if (ref == NUMBER)
+            return numbers[index];
+        return ref instanceof Number n ? n.doubleValue() : def;
+    }
+
+}
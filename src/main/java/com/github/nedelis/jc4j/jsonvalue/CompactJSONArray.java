@@ -0,0 +1,61 @@
+package com.github.nedelis.jc4j.jsonvalue;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Compact immutable json array, created by {@link JSONTreeBuilder}.
+ * Numbers are stored unboxed in a double column and other values in a reference column,
+ * an array of numbers has no reference column at all. Numbers are boxed only when they are requested
+ * as objects, use {@link #getDouble(int, double)} to read them without boxing
+ */
+public final class CompactJSONArray extends AbstractList<Object> implements RandomAccess {
+
+    private final int size;
+    private final double[] numbers;
+    private final Object[] refs;
+
+    CompactJSONArray(int size, double @Nullable [] numbers, Object @Nullable [] refs) {
+        this.size = size;
+        this.numbers = numbers;
+        this.refs = refs;
+    }
+
+    @Override
+    public Object get(int index) {
+        return CompactColumns.get(numbers, refs, checkIndex(index));
+    }
+
+    /**
+     * Returns the number stored at the given index without boxing it
+     * @param index index of the element
+     * @param def default value
+     * @return number at the index or default value if the element isn't a number
+     */
+    public double getDouble(int index, double def) {
+        return CompactColumns.getDouble(numbers, refs, checkIndex(index), def);
+    }
+
+    /**
+     * @param index index of the element
+     * @param def default value
+     * @return boolean at the index or default value if the element isn't a boolean
+     */
+    public boolean getBoolean(int index, boolean def) {
+        return get(index) instanceof Boolean b ? b : def;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.github.nedelis.jc4j.jsonvalue;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact immutable json object, created by {@link JSONTreeBuilder}.
+ * <p>
+ * Keys are kept in a {@link Shape}, that is shared by all objects with the same keys in the same order
+ * (e.g. elements of an array of similar objects), numbers are stored unboxed in a double column and
+ * other values in a reference column. Numbers are boxed only when they are requested as objects,
+ * use {@link #getDouble(String, double)} to read them without boxing.
+ * Iteration order is the order of the keys in the source document
+ */
+public final class CompactJSONObject extends AbstractMap<String, Object> {
+
+    /**
+     * Keys of an object and their lookup table
+     */
+    static final class Shape {
+
+        /**
+         * Objects with at most this amount of keys are searched linearly
+         */
+        private static final int LINEAR_SEARCH_LIMIT = 8;
+
+        final String[] keys;
+        /**
+         * Open addressing table of key indexes + 1, 0 marks an empty slot. Null for small shapes
+         */
+        private final int[] table;
+
+        Shape(String @NotNull [] keys) {
+            this.keys = keys;
+            if (keys.length <= LINEAR_SEARCH_LIMIT) {
+                this.table = null;
+                return;
+            }
+            this.table = new int[Integer.highestOneBit(keys.length) << 2];
+            for (int i = 0; i < keys.length; i++) {
+                var slot = slot(keys[i]);
+                while (table[slot] != 0)
+                    slot = (slot + 1) & (table.length - 1);
+                table[slot] = i + 1;
+            }
+        }
+
+        private int slot(@NotNull Object key) {
+            var h = key.hashCode();
+            return (h ^ (h >>> 16)) & (table.length - 1);
+        }
+
+        int indexOf(@Nullable Object key) {
+            if (key == null)
+                return -1;
+            if (table == null) {
+                for (int i = 0; i < keys.length; i++)
+                    if (keys[i] == key || keys[i].equals(key))
+                        return i;
+                return -1;
+            }
+            var slot = slot(key);
+            int entry;
+            while ((entry = table[slot]) != 0) {
+                if (keys[entry - 1].equals(key))
+                    return entry - 1;
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+    }
+
+    private final Shape shape;
+    private final double[] numbers;
+    private final Object[] refs;
+    private Set<Entry<String, Object>> entrySet;
+
+    CompactJSONObject(@NotNull Shape shape, double @Nullable [] numbers, Object @Nullable [] refs) {
+        this.shape = shape;
+        this.numbers = numbers;
+        this.refs = refs;
+    }
+
+    @Override
+    public Object get(Object key) {
+        var index = shape.indexOf(key);
+        return index >= 0 ? CompactColumns.get(numbers, refs, index) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the number stored under the given key without boxing it
+     * @param key key to get value
+     * @param def default value
+     * @return number under the key or default value if there is no number under the key
+     */
+    public double getDouble(@NotNull String key, double def) {
+        var index = shape.indexOf(key);
+        return index >= 0 ? CompactColumns.getDouble(numbers, refs, index, def) : def;
+    }
+
+    /**
+     * @param key key to get value
+     * @param def default value
+     * @return boolean under the key or default value if there is no boolean under the key
+     */
+    public boolean getBoolean(@NotNull String key, boolean def) {
+        return get(key) instanceof Boolean b ? b : def;
+    }
+
+    @Override
+    public int size() {
+        return shape.keys.length;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < shape.keys.length; i++)
+            action.accept(shape.keys[i], CompactColumns.get(numbers, refs, i));
+    }
+
+    @Override
+    public @NotNull Set<Entry<String, Object>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < shape.keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            var index = next++;
+                            return new SimpleImmutableEntry<>(shape.keys[index], CompactColumns.get(numbers, refs, index));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return shape.keys.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.github.nedelis.jc4j.jsonvalue;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Builds compact immutable json trees ({@link CompactJSONObject} and {@link CompactJSONArray}).
+ * Keys and short strings are interned, so repeated strings of a document share one instance,
+ * and objects with the same keys share one {@link CompactJSONObject.Shape}.
+ * Use one builder per document, builders aren't thread-safe
+ */
+public final class JSONTreeBuilder {
+
+    /**
+     * Longer string values are rarely repeated, so they aren't interned
+     */
+    private static final int MAX_INTERNED_LENGTH = 32;
+
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<List<String>, CompactJSONObject.Shape> shapes = new HashMap<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    /**
+     * Returns the instance of the given string shared by the whole document
+     * @param string string to intern
+     * @return interned string
+     */
+    public @NotNull String intern(@NotNull String string) {
+        var interned = strings.putIfAbsent(string, string);
+        return interned != null ? interned : string;
+    }
+
+    /**
+     * Interns the given value if it's a short string
+     * @param value any json value
+     * @return interned string or the given value
+     */
+    public @Nullable Object value(@Nullable Object value) {
+        return value instanceof String str && str.length() <= MAX_INTERNED_LENGTH ? intern(str) : value;
+    }
+
+    /**
+     * Creates a json object. If a key is repeated, the last value wins and the first position is kept
+     * @param keys keys in document order
+     * @param values values of the keys, doubles are stored unboxed
+     * @return compact json object
+     */
+    @Contract("_, _ -> new")
+    public @NotNull CompactJSONObject object(@NotNull List<String> keys, @NotNull List<?> values) {
+        var size = keys.size();
+        var names = new String[size];
+        var slots = values.toArray();
+        var count = 0;
+        positions.clear();
+        for (int i = 0; i < size; i++) {
+            var key = intern(keys.get(i));
+            var existing = indexOf(names, count, key, size);
+            if (existing >= 0) {
+                slots[existing] = slots[i];
+                continue;
+            }
+            names[count] = key;
+            slots[count++] = slots[i];
+        }
+        if (count < size)
+            names = Arrays.copyOf(names, count);
+
+        var shape = shapes.get(Arrays.asList(names));
+        if (shape == null) {
+            shape = new CompactJSONObject.Shape(names);
+            shapes.put(Arrays.asList(names), shape);
+        }
+        var columns = CompactColumns.of(slots, count);
+        return new CompactJSONObject(shape, columns.numbers, columns.refs);
+    }
+
+    /**
+     * Finds the position of the given key among the first keys of the object being built
+     */
+    private int indexOf(String @NotNull [] names, int count, @NotNull String key, int size) {
+        if (size <= 8) {
+            for (int i = 0; i < count; i++)
+                if (names[i] == key)
+                    return i;
+            return -1;
+        }
+        var existing = positions.putIfAbsent(key, count);
+        return existing != null ? existing : -1;
+    }
+
+    /**
+     * Creates a json array
+     * @param values elements, doubles are stored unboxed
+     * @return compact json array
+     */
+    @Contract("_ -> new")
+    public @NotNull CompactJSONArray array(@NotNull List<?> values) {
+        var columns = CompactColumns.of(values);
+        return new CompactJSONArray(values.size(), columns.numbers, columns.refs);
+    }
+
+}
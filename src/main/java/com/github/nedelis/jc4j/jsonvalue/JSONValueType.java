@@ -4,15 +4,13 @@ import com.github.nedelis.jc4j.JSONConfig4Java;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * This class allows you to convert any value from a json to a java value;
- * You also can register your own java value types by using {@link JSONValueType#register(String, IJSONValueType)}
+ * You also can register your own java value types by using {@link JSONValueType#register(String, Class, IJSONValueType)}
  * <p>
  * All registered types will be stored in the {@link JSONValueType#TYPES}; If you need to get definite
  * IJSONValueType you can use saved constants of them
@@ -20,9 +18,36 @@ import java.util.stream.Collectors;
 @SuppressWarnings("unused")
 public final class JSONValueType {
 
-    private static final Map<String, IJSONValueType<?>> TYPES = new HashMap<>();
+    private static final Map<String, IJSONValueType<?>> TYPES = new LinkedHashMap<>();
+    /**
+     * Registered types in registration order, used when the type can't be found by class
+     */
+    private static volatile IJSONValueType<?>[] ORDERED_TYPES = new IJSONValueType<?>[0];
+    /**
+     * Java classes of the types registered with {@link #register(String, Class, IJSONValueType)}
+     */
+    private static final Map<Class<?>, IJSONValueType<?>> CLASS_TYPES = new ConcurrentHashMap<>();
+    /**
+     * Memoised results of the type resolution for the classes of the default values,
+     * replaced with an empty map on every registration
+     */
+    private static volatile Map<Class<?>, IJSONValueType<?>> RESOLVED_TYPES = new ConcurrentHashMap<>();
+    /**
+     * Marks classes for which no type was found in {@link #RESOLVED_TYPES}
+     */
+    private static final IJSONValueType<?> NO_TYPE = new IJSONValueType<>() {
+        @Override
+        public boolean checkForInstance(Object toCheck) {
+            return false;
+        }
+
+        @Override
+        public Object convert(Object toConvert, Object def) {
+            return def;
+        }
+    };
 
-    public static final IJSONValueType<String> STR = register("STR", new IJSONValueType<>() {
+    public static final IJSONValueType<String> STR = register("STR", String.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof String;
@@ -30,16 +55,20 @@ public final class JSONValueType {
 
         @Override
         public String convert(Object toConvert, String def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a string...");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a string...");
             if (toConvert instanceof String str) {
-                JSONConfig4Java.LOGGER.debug("Successfully converted '" + str + "' to a string");
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + str + "' to a string");
                 return str;
             }
-            JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a string, because it is not a string!");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a string, because it is not a string!");
             return def;
         }
     });
-    public static final IJSONValueType<Integer> INT = register("INT", new IJSONValueType<>() {
+    public static final IJSONValueType<Integer> INT = register("INT", Integer.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof Integer;
@@ -47,17 +76,20 @@ public final class JSONValueType {
 
         @Override
         public Integer convert(Object toConvert, Integer def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to an integer...");
-            var d = JSONConfig4Java.LOGGER.doWithoutLogging(() -> DOUBLE.convert(toConvert, null));
-            if (d == null) {
-                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to an integer, because it is not a number!");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to an integer...");
+            if (!(toConvert instanceof Double d)) {
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to an integer, because it is not a number!");
                 return def;
             }
-            JSONConfig4Java.LOGGER.debug("Successfully converted '" + d.intValue() + "' to an integer");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Successfully converted '" + d.intValue() + "' to an integer");
             return d.intValue();
         }
     });
-    public static final IJSONValueType<Double> DOUBLE = register("DOUBLE", new IJSONValueType<>() {
+    public static final IJSONValueType<Double> DOUBLE = register("DOUBLE", Double.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof Double;
@@ -65,16 +97,20 @@ public final class JSONValueType {
 
         @Override
         public Double convert(Object toConvert, Double def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a double...");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a double...");
             if (toConvert instanceof Double d) {
-                JSONConfig4Java.LOGGER.debug("Successfully converted '" + d + "' to a double");
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + d + "' to a double");
                 return d;
             }
-            JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a double, because it is not a double!");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a double, because it is not a double!");
             return def;
         }
     });
-    public static final IJSONValueType<Boolean> BOOL = register("BOOL", new IJSONValueType<>() {
+    public static final IJSONValueType<Boolean> BOOL = register("BOOL", Boolean.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof Boolean;
@@ -82,16 +118,20 @@ public final class JSONValueType {
 
         @Override
         public Boolean convert(Object toConvert, Boolean def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a boolean...");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a boolean...");
             if (toConvert instanceof Boolean bool) {
-                JSONConfig4Java.LOGGER.debug("Successfully converted '" + bool + "' to a boolean");
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + bool + "' to a boolean");
                 return bool;
             }
-            JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a double, because it is not a boolean!");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a double, because it is not a boolean!");
             return def;
         }
     });
-    public static final IJSONValueType<ArrayList<JSONValue>> JS_VAL_LIST = register("JS_VAL_LIST", new IJSONValueType<>() {
+    public static final IJSONValueType<ArrayList<JSONValue>> JS_VAL_LIST = register("JS_VAL_LIST", List.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof List;
@@ -99,16 +139,20 @@ public final class JSONValueType {
 
         @Override
         public ArrayList<JSONValue> convert(Object toConvert, ArrayList<JSONValue> def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a list of JSON values...");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a list of JSON values...");
             if (toConvert instanceof List<?> list) {
-                JSONConfig4Java.LOGGER.debug("Successfully converted '" + list + "' to a list of JSON values");
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + list + "' to a list of JSON values");
                 return new ArrayList<>(JSONValue.objectsToJsonValues(list));
             }
-            JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a list of JSON values, because it is not a list!");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a list of JSON values, because it is not a list!");
             return def;
         }
     });
-    public static final IJSONValueType<HashMap<String, JSONValue>> JS_VAL_MAP = register("JS_VAL_MAP", new IJSONValueType<>() {
+    public static final IJSONValueType<HashMap<String, JSONValue>> JS_VAL_MAP = register("JS_VAL_MAP", Map.class, new IJSONValueType<>() {
         @Override
         public boolean checkForInstance(Object toCheck) {
             return toCheck instanceof Map;
@@ -116,14 +160,71 @@ public final class JSONValueType {
 
         @Override
         public HashMap<String, JSONValue> convert(Object toConvert, HashMap<String, JSONValue> def) {
-            JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a map of JSON values...");
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to a map of JSON values...");
             if (toConvert instanceof Map<?, ?> map) {
-                JSONConfig4Java.LOGGER.debug("Successfully converted '" + map + "' to a map of JSON values");
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + map + "' to a map of JSON values");
                 return new HashMap<>(map.entrySet().stream().collect(
                         Collectors.toMap(entry -> entry.getKey().toString(), entry -> JSONValue.of(entry.getValue()))
                 ));
             }
-            JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a map of JSON values, because it is not a map!");
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a map of JSON values, because it is not a map!");
+            return def;
+        }
+    });
+    /**
+     * Same as {@link #JS_VAL_LIST}, but the result is unmodifiable, so it can be shared between callers
+     * @see com.github.nedelis.jc4j.ConfigWrapper#getCachedAsJavaValue(String, IJSONValueType)
+     */
+    public static final IJSONValueType<List<JSONValue>> JS_VAL_LIST_VIEW = register("JS_VAL_LIST_VIEW", new IJSONValueType<>() {
+        @Override
+        public boolean checkForInstance(Object toCheck) {
+            return toCheck instanceof List;
+        }
+
+        @Override
+        public List<JSONValue> convert(Object toConvert, List<JSONValue> def) {
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to an unmodifiable list of JSON values...");
+            if (toConvert instanceof List<?> list) {
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + list + "' to an unmodifiable list of JSON values");
+                return JSONValue.objectsToJsonValues(list);
+            }
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a list of JSON values, because it is not a list!");
+            return def;
+        }
+    });
+    /**
+     * Same as {@link #JS_VAL_MAP}, but the result is unmodifiable, so it can be shared between callers
+     * @see com.github.nedelis.jc4j.ConfigWrapper#getCachedAsJavaValue(String, IJSONValueType)
+     */
+    public static final IJSONValueType<Map<String, JSONValue>> JS_VAL_MAP_VIEW = register("JS_VAL_MAP_VIEW", new IJSONValueType<>() {
+        @Override
+        public boolean checkForInstance(Object toCheck) {
+            return toCheck instanceof Map;
+        }
+
+        @Override
+        public Map<String, JSONValue> convert(Object toConvert, Map<String, JSONValue> def) {
+            var debug = JSONConfig4Java.LOGGER.isDebugEnabled();
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Trying to convert '" + toConvert + "' to an unmodifiable map of JSON values...");
+            if (toConvert instanceof Map<?, ?> map) {
+                if (debug)
+                    JSONConfig4Java.LOGGER.debug("Successfully converted '" + map + "' to an unmodifiable map of JSON values");
+                var converted = new LinkedHashMap<String, JSONValue>(map.size() * 4 / 3 + 1);
+                for (var entry : map.entrySet())
+                    converted.put(entry.getKey().toString(), JSONValue.of(entry.getValue()));
+                return Collections.unmodifiableMap(converted);
+            }
+            if (debug)
+                JSONConfig4Java.LOGGER.debug("Unable to convert '" + toConvert + "' to a map of JSON values, because it is not a map!");
             return def;
         }
     });
@@ -132,36 +233,102 @@ public final class JSONValueType {
      * @param name name of a json value type
      * @return {@link IJSONValueType} from {@link #TYPES} associated with the given name
      */
-    private static IJSONValueType<?> get(String name) {
+    private static synchronized IJSONValueType<?> get(String name) {
         return TYPES.get(name);
     }
 
     /**
-     * This method tries to find IJSONValueType by calling
-     * {@link IJSONValueType#checkForInstance(Object)} for each
-     * registered IJSONValueType
+     * Reverse lookup of the type name
+     * @param type registered type
+     * @return name the type was registered with or null if it isn't registered
+     */
+    public static synchronized @Nullable String getName(@NotNull IJSONValueType<?> type) {
+        for (var entry : TYPES.entrySet())
+            if (entry.getValue() == type)
+                return entry.getKey();
+        return null;
+    }
+
+    /**
+     * This method finds IJSONValueType for the class of the given instance. At first, it looks for a type registered
+     * for the class itself or any of its superclasses and interfaces, then it calls
+     * {@link IJSONValueType#checkForInstance(Object)} for each registered IJSONValueType in registration order.
+     * The result is memoised per class, so checkForInstance is expected to depend only on the class of the object
      * @param instance instance object
      * @return definite IJSONValueType registered in {@link #TYPES} if provided object is instanceof its type
      * @param <T> specifies the type of returned IJSONValueType
      */
     @SuppressWarnings("unchecked")
     private static <T> @Nullable IJSONValueType<T> getByInstance(T instance) {
-        for (var type : TYPES.values())
+        if (instance == null)
+            return null;
+        var resolved = RESOLVED_TYPES;
+        var type = resolved.get(instance.getClass());
+        if (type == null) {
+            type = resolve(instance);
+            resolved.putIfAbsent(instance.getClass(), type);
+        }
+        if (type == NO_TYPE) {
+            JSONConfig4Java.LOGGER.debug(() -> "Couldn't find JSONValueType for object '" + instance + "'!");
+            return null;
+        }
+        return (IJSONValueType<T>) type;
+    }
+
+    /**
+     * Resolves IJSONValueType for the class of the given instance without the memoisation
+     * @param instance instance object
+     * @return found type or {@link #NO_TYPE}
+     */
+    private static @NotNull IJSONValueType<?> resolve(@NotNull Object instance) {
+        var queue = new ArrayDeque<Class<?>>();
+        var visited = new HashSet<Class<?>>();
+        queue.add(instance.getClass());
+        while (!queue.isEmpty()) {
+            var clazz = queue.poll();
+            if (!visited.add(clazz))
+                continue;
+            var type = CLASS_TYPES.get(clazz);
+            if (type != null)
+                return type;
+            if (clazz.getSuperclass() != null)
+                queue.add(clazz.getSuperclass());
+            queue.addAll(Arrays.asList(clazz.getInterfaces()));
+        }
+        for (var type : ORDERED_TYPES)
             if (type.checkForInstance(instance))
-                return (IJSONValueType<T>) type;
-        JSONConfig4Java.LOGGER.debug("Couldn't find JSONValueType for object '" + instance + "'!");
-        return null;
+                return type;
+        return NO_TYPE;
     }
 
     /**
-     * Registers a new IJSONValueType (puts it in {@link #TYPES} and returns it)
+     * Registers a new IJSONValueType (puts it in {@link #TYPES} and returns it).
+     * Types registered this way are found by {@link IJSONValueType#checkForInstance(Object)},
+     * prefer {@link #register(String, Class, IJSONValueType)} when the java class of the type is known
      * @param name name that will be associated with new IJSONValueType
      * @param type IJSONValueType that will be registered
      * @return provided IJSONValueType
      * @param <T> specifies the type of returned IJSONValueType
      */
     public static <T> IJSONValueType<T> register(String name, IJSONValueType<T> type) {
+        return register(name, null, type);
+    }
+
+    /**
+     * Registers a new IJSONValueType for the given java class. Default values of this class and its subclasses
+     * are converted with the registered type. This method can be called while other threads convert values
+     * @param name name that will be associated with new IJSONValueType
+     * @param javaClass java class the type converts to, may be null
+     * @param type IJSONValueType that will be registered
+     * @return provided IJSONValueType
+     * @param <T> specifies the type of returned IJSONValueType
+     */
+    public static synchronized <T> IJSONValueType<T> register(String name, @Nullable Class<?> javaClass, IJSONValueType<T> type) {
         TYPES.put(name, type);
+        ORDERED_TYPES = TYPES.values().toArray(IJSONValueType<?>[]::new);
+        if (javaClass != null)
+            CLASS_TYPES.put(javaClass, type);
+        RESOLVED_TYPES = new ConcurrentHashMap<>();
         return type;
     }
 
@@ -178,7 +345,9 @@ public final class JSONValueType {
         var type = getByInstance(def);
         if (type != null)
             return type.convert(jsonValue, def);
-        JSONConfig4Java.LOGGER.debug(
+        if (def == null)
+            return null;
+        JSONConfig4Java.LOGGER.debug(() ->
                 "Error during converting '" +
                         jsonValue + "' to a '" + def.getClass().getName() +
                         "', because there is no such value type as '" +
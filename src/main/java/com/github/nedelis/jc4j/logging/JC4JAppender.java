@@ -0,0 +1,25 @@
+package com.github.nedelis.jc4j.logging;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Destination of the formatted log messages. If the logger has an appender,
+ * messages are handed to it instead of being collected in memory
+ * @see JC4JLoggerBuilder#setAppender(JC4JAppender)
+ * @see JC4JAsyncFileAppender
+ */
+public interface JC4JAppender {
+
+    /**
+     * Accepts formatted message. This method is called on the logging thread, so it should be cheap
+     * @param formattedMessage message formatted according to the logger's pattern
+     */
+    void append(@NotNull String formattedMessage);
+
+    /**
+     * Writes out all accepted messages and releases resources of the appender.
+     * Called from the logger's shutdown hook
+     */
+    void close();
+
+}
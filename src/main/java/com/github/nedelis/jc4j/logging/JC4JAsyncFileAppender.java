@@ -0,0 +1,282 @@
+package com.github.nedelis.jc4j.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appender that hands messages to a bounded lock-free ring buffer. A background thread drains the buffer
+ * in batches into a {@link FileChannel} and forces the file to disk periodically, so logging threads never
+ * wait for I/O. An idle writer backs off and then sleeps until the next message arrives. When the buffer is full, the message is either dropped or the logging thread waits for
+ * a free slot, depending on the {@link OverflowPolicy}
+ */
+@SuppressWarnings("unused")
+public final class JC4JAsyncFileAppender implements JC4JAppender {
+
+    /**
+     * What the logging thread should do when the ring buffer is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the writer frees a slot
+         */
+        BLOCK,
+        /**
+         * Drop the message and count it in {@link #droppedMessages()}
+         */
+        DROP
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final long FULL_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * Idle writer parks for 1us, 2us, ... 512us before it goes to sleep until it's signalled
+     */
+    private static final int BACKOFF_ROUNDS = 10;
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String[] buffer;
+    /**
+     * Sequence of each slot: equals to the position when the slot is free for the producer of that position,
+     * equals to position + 1 when the slot holds the message of that position
+     */
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0;
+
+    private final OverflowPolicy policy;
+    private final long flushIntervalNanos;
+    private final FileChannel channel;
+    private final ByteBuffer batch = ByteBuffer.allocate(BATCH_BYTES);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed = false;
+    /**
+     * Set by the writer before it sleeps, producers wake it up only while it's set
+     */
+    private volatile boolean sleeping = false;
+
+    /**
+     * Creates appender with {@link #DEFAULT_CAPACITY}, {@link #DEFAULT_FLUSH_INTERVAL} and dropping policy
+     * @param pathToLogFile file the messages will be appended to
+     * @throws IOException if the file cannot be opened
+     */
+    public JC4JAsyncFileAppender(@NotNull Path pathToLogFile) throws IOException {
+        this(pathToLogFile, DEFAULT_CAPACITY, OverflowPolicy.DROP, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Creates appender and starts its writer thread
+     * @param pathToLogFile file the messages will be appended to
+     * @param capacity capacity of the ring buffer, rounded up to a power of two
+     * @param policy what to do when the ring buffer is full
+     * @param flushInterval how often the file is forced to disk
+     * @throws IOException if the file cannot be opened
+     */
+    public JC4JAsyncFileAppender(@NotNull Path pathToLogFile, int capacity, @NotNull OverflowPolicy policy, @NotNull Duration flushInterval) throws IOException {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30, but was " + capacity);
+        var size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.buffer = new String[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        this.mask = size - 1;
+        this.policy = policy;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.channel = FileChannel.open(pathToLogFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        this.writer = new Thread(this::drainLoop, "JC4J-AsyncFileAppender-" + pathToLogFile.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(@NotNull String formattedMessage) {
+        if (!closed && offer(formattedMessage)) {
+            wakeWriter();
+            return;
+        }
+        if (policy == OverflowPolicy.BLOCK) {
+            while (!closed) {
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                if (offer(formattedMessage)) {
+                    wakeWriter();
+                    return;
+                }
+            }
+        }
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Tries to put the message into the ring buffer
+     * @param message message to put
+     * @return false if the buffer is full
+     */
+    private boolean offer(@NotNull String message) {
+        var pos = tail.get();
+        while (true) {
+            var index = (int) pos & mask;
+            var diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = message;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private void wakeWriter() {
+        if (sleeping)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * Takes the next message from the ring buffer, only called by the writer thread
+     * @return next message or null if the buffer is empty
+     */
+    private @Nullable String poll() {
+        var index = (int) head & mask;
+        if (sequences.get(index) != head + 1)
+            return null;
+        var message = buffer[index];
+        buffer[index] = null;
+        sequences.set(index, head + buffer.length);
+        head++;
+        return message;
+    }
+
+    /**
+     * @return true if there is no message at the head of the ring buffer, only called by the writer thread
+     */
+    private boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    private void drainLoop() {
+        var lastForce = System.nanoTime();
+        var dirty = false;
+        var idleRounds = 0;
+        try {
+            while (true) {
+                var wasClosed = closed;
+                var written = false;
+                String message;
+                while ((message = poll()) != null) {
+                    put(message.getBytes(StandardCharsets.UTF_8));
+                    put(LINE_SEPARATOR);
+                    written = true;
+                }
+                if (written) {
+                    writeBatch();
+                    dirty = true;
+                }
+                if (dirty && (wasClosed || System.nanoTime() - lastForce >= flushIntervalNanos)) {
+                    channel.force(false);
+                    lastForce = System.nanoTime();
+                    dirty = false;
+                }
+                if (wasClosed)
+                    break;
+                if (written)
+                    idleRounds = 0;
+                else if (idleRounds < BACKOFF_ROUNDS)
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(1L << idleRounds++));
+                else
+                    sleep(dirty ? Math.max(1, flushIntervalNanos - (System.nanoTime() - lastForce)) : -1);
+            }
+        } catch (IOException e) {
+            System.out.println("\u001B[31mJC4J async appender failed to write the log file: " + e + "\u001B[0m");
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing else can be done here
+            }
+        }
+    }
+
+    /**
+     * Parks the writer until a producer or {@link #close()} wakes it up
+     * @param timeoutNanos maximum time to sleep, negative to sleep without timeout
+     */
+    private void sleep(long timeoutNanos) {
+        sleeping = true;
+        // a message offered before the flag was set wouldn't wake the writer
+        if (isEmpty() && !closed) {
+            if (timeoutNanos < 0)
+                LockSupport.park(this);
+            else
+                LockSupport.parkNanos(this, timeoutNanos);
+        }
+        sleeping = false;
+    }
+
+    private void put(byte @NotNull [] bytes) throws IOException {
+        if (bytes.length > batch.remaining()) {
+            writeBatch();
+            if (bytes.length > batch.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        batch.put(bytes);
+    }
+
+    private void writeBatch() throws IOException {
+        batch.flip();
+        writeFully(batch);
+        batch.clear();
+    }
+
+    private void writeFully(@NotNull ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining())
+            channel.write(bytes);
+    }
+
+    /**
+     * Stops accepting messages, writes out everything that's left in the buffer and closes the file
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return amount of messages that were dropped because the buffer was full
+     */
+    public long droppedMessages() {
+        return dropped.get();
+    }
+
+}
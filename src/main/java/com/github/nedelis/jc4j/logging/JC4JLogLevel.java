@@ -1,48 +1,182 @@
 package com.github.nedelis.jc4j.logging;
 
-import java.util.HashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * This class contains all allowed message/logger levels
+ * This class contains all allowed message/logger levels.
+ * <p>
+ * Names and ANSI colours of the levels are stored in arrays indexed by the level integer, so looking them up
+ * costs a single array load. Besides the {@link Standard} levels, custom levels can be registered with
+ * {@link #registerLevel(String, int, int, String)}; a custom level is filtered by the logger as its severity
  */
 @SuppressWarnings("unused")
 public final class JC4JLogLevel {
 
-    private static final Map<String, Integer> LEVELS = new HashMap<>();
+    /**
+     * Level integers must be less than this value
+     */
+    public static final int MAX_LEVELS = 32;
+    /**
+     * The first level integer that can be used by custom levels
+     */
+    public static final int FIRST_CUSTOM_LEVEL = 8;
 
-    public static final int ALL = registerLevel("ALL", 0);
-    public static final int TRACE = registerLevel("TRACE", 1);
-    public static final int DEBUG = registerLevel("DEBUG", 2);
-    public static final int INFO = registerLevel("INFO", 3);
-    public static final int WARN = registerLevel("WARN", 4);
-    public static final int ERROR = registerLevel("ERROR", 5);
-    public static final int FATAL = registerLevel("FATAL", 6);
-    public static final int OFF = registerLevel("OFF", 7);
+    public static final String WHITE = "\u001B[37m";
+    public static final String CYAN = "\u001B[36m";
+    public static final String GREEN = "\u001B[32m";
+    public static final String YELLOW = "\u001B[33m";
+    public static final String RED = "\u001B[31m";
 
     /**
-     * Registers logging level
-     * @param name level name
-     * @param level level integer
+     * Built-in levels, ordered by severity
+     */
+    public enum Standard {
+        ALL(0, WHITE),
+        TRACE(1, WHITE),
+        DEBUG(2, CYAN),
+        INFO(3, GREEN),
+        WARN(4, YELLOW),
+        ERROR(5, RED),
+        FATAL(6, RED),
+        OFF(7, RED);
+
+        private static final Standard[] BY_LEVEL = values();
+
+        private final int level;
+        private final String color;
+
+        Standard(int level, @NotNull String color) {
+            this.level = level;
+            this.color = color;
+        }
+
+        /**
+         * @return level integer
+         */
+        public int level() {
+            return level;
+        }
+
+        /**
+         * @return ANSI colour of the messages of this level
+         */
+        public @NotNull String color() {
+            return color;
+        }
+
+        /**
+         * Reverse lookup of the built-in level
+         * @param level level integer
+         * @return built-in level with the given integer or null if there is no such built-in level
+         */
+        public static @Nullable Standard of(int level) {
+            return level >= 0 && level < BY_LEVEL.length ? BY_LEVEL[level] : null;
+        }
+    }
+
+    private static volatile String[] NAMES = new String[MAX_LEVELS];
+    private static volatile String[] COLORS = new String[MAX_LEVELS];
+    /**
+     * Standard level each level is filtered as
+     */
+    private static volatile int[] SEVERITIES = new int[MAX_LEVELS];
+    private static final Map<String, Integer> LEVELS = new ConcurrentHashMap<>();
+
+    static {
+        for (var level : Standard.values())
+            register(level.name(), level.level(), level.level(), level.color());
+    }
+
+    public static final int ALL = Standard.ALL.level();
+    public static final int TRACE = Standard.TRACE.level();
+    public static final int DEBUG = Standard.DEBUG.level();
+    public static final int INFO = Standard.INFO.level();
+    public static final int WARN = Standard.WARN.level();
+    public static final int ERROR = Standard.ERROR.level();
+    public static final int FATAL = Standard.FATAL.level();
+    public static final int OFF = Standard.OFF.level();
+
+    private JC4JLogLevel() {
+    }
+
+    /**
+     * Registers a custom logging level. This method can be called while other threads log messages
+     * @param name level name, printed by the 'lvl' stamp
+     * @param level level integer, from {@link #FIRST_CUSTOM_LEVEL} (inclusive) to {@link #MAX_LEVELS} (exclusive)
+     * @param severity standard level the messages of this level are filtered as
+     * @param ansiColor ANSI escape sequence of the colour of the messages in the console
      * @return level integer
+     * @throws IllegalArgumentException if the level integer is out of range or the name or the level is already registered
      */
-    private static int registerLevel(String name, int level) {
-        LEVELS.put(name, level);
+    public static int registerLevel(@NotNull String name, @Range(from=FIRST_CUSTOM_LEVEL, to=MAX_LEVELS - 1) int level,
+                                    @Range(from=1, to=6) int severity, @NotNull String ansiColor) {
+        if (level < FIRST_CUSTOM_LEVEL || level >= MAX_LEVELS)
+            throw new IllegalArgumentException("Custom level must be between " + FIRST_CUSTOM_LEVEL + " and " + (MAX_LEVELS - 1) + ", but was " + level);
+        if (severity <= ALL || severity >= OFF)
+            throw new IllegalArgumentException("Severity must be between TRACE and FATAL, but was " + severity);
+        return register(name, level, severity, ansiColor);
+    }
+
+    private static synchronized int register(@NotNull String name, int level, int severity, @NotNull String ansiColor) {
+        if (NAMES[level] != null)
+            throw new IllegalArgumentException("Level " + level + " is already registered as " + NAMES[level]);
+        if (LEVELS.putIfAbsent(name, level) != null)
+            throw new IllegalArgumentException("Level " + name + " is already registered");
+        var names = Arrays.copyOf(NAMES, MAX_LEVELS);
+        var colors = Arrays.copyOf(COLORS, MAX_LEVELS);
+        var severities = Arrays.copyOf(SEVERITIES, MAX_LEVELS);
+        names[level] = name;
+        colors[level] = ansiColor;
+        severities[level] = severity;
+        COLORS = colors;
+        SEVERITIES = severities;
+        NAMES = names;
         return level;
     }
 
     /**
      * Finds name of the provided level integer
      * @param level level integer
-     * @return name of the provided level
+     * @return name of the provided level, "OFF" if there is no such level
      */
     public static String getLevelName(int level) {
-        for (var k : LEVELS.keySet()) {
-            if (LEVELS.get(k) == level) {
-                return k;
-            }
-        }
-        return "OFF";
+        var names = NAMES;
+        return level >= 0 && level < MAX_LEVELS && names[level] != null ? names[level] : "OFF";
+    }
+
+    /**
+     * @param level level integer
+     * @return ANSI colour of the messages of the provided level, white if there is no such level
+     */
+    public static @NotNull String getLevelColor(int level) {
+        var colors = COLORS;
+        return level >= 0 && level < MAX_LEVELS && colors[level] != null ? colors[level] : WHITE;
+    }
+
+    /**
+     * @param level level integer
+     * @return standard level the messages of the provided level are filtered as, {@link #OFF} if there is no such level
+     */
+    public static int getSeverity(int level) {
+        // severities are published before names, so a registered name guarantees its severity is visible
+        var names = NAMES;
+        return level >= 0 && level < MAX_LEVELS && names[level] != null ? SEVERITIES[level] : OFF;
+    }
+
+    /**
+     * Reverse lookup of the level integer
+     * @param name level name
+     * @return level integer or -1 if there is no level with such name
+     */
+    public static int getLevel(@NotNull String name) {
+        var level = LEVELS.get(name);
+        return level != null ? level : -1;
     }
 
 }
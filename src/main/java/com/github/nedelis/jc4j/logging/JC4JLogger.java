@@ -3,6 +3,7 @@ package com.github.nedelis.jc4j.logging;
 import com.github.nedelis.jc4j.util.NoParamsFunction;
 import com.github.nedelis.jc4j.util.Procedure;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
 import java.io.IOException;
@@ -13,6 +14,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Custom logger of the library. This logger is wrapper for the System.out.println() function
@@ -24,20 +26,53 @@ import java.util.List;
 public class JC4JLogger {
     private final String name;
     private final int logLevel;
+    /**
+     * Bit N is set if messages of level N pass the logger level
+     */
+    private final int levelMask;
     private final JC4JLoggerMessagePattern pattern;
 
+    /**
+     * Messages that will be written to the log file at shutdown, used only if there is no appender
+     */
     private final List<String> messages = new ArrayList<>();
-    private boolean isEnabled = true;
+    private final boolean collectMessages;
+    private final JC4JAppender appender;
+    private final boolean consoleOutput;
+    private volatile boolean isEnabled = true;
+    /**
+     * Depth of nested {@link #doWithoutLogging(Procedure)} calls of the current thread
+     */
+    private final ThreadLocal<int[]> suppression = ThreadLocal.withInitial(() -> new int[1]);
+    /**
+     * Amount of threads inside {@link #doWithoutLogging(Procedure)}, while it's 0 the thread-local state isn't read
+     */
+    private final AtomicInteger suppressingThreads = new AtomicInteger();
 
     protected JC4JLogger(String name, Path pathToLogFile, @Range(from=0, to=7) int logLevel, JC4JLoggerMessagePattern pattern) {
+        this(name, pathToLogFile, logLevel, pattern, null, true);
+    }
+
+    protected JC4JLogger(String name, Path pathToLogFile, @Range(from=0, to=7) int logLevel, JC4JLoggerMessagePattern pattern,
+                         @Nullable JC4JAppender appender, boolean consoleOutput) {
         this.name = name;
         this.logLevel = logLevel;
+        this.levelMask = logLevel >= JC4JLogLevel.OFF ? 0 : -1 << logLevel;
         this.pattern = pattern;
+        this.appender = appender;
+        this.consoleOutput = consoleOutput;
+        this.collectMessages = appender == null && pathToLogFile != null;
 
-        if (pathToLogFile != null) {
+        if (appender != null) {
+            Runtime.getRuntime().addShutdownHook(new Thread(appender::close, "CloseLogAppender"));
+        } else if (pathToLogFile != null) {
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 try (var writer = Files.newBufferedWriter(pathToLogFile, StandardCharsets.UTF_8)) {
-                    for (var line : messages) {
+                    List<String> lines;
+                    synchronized (messages) {
+                        lines = List.copyOf(messages);
+                    }
+                    for (var line : lines) {
                         writer.write(line + "\n");
                     }
                 } catch (IOException e) {
@@ -48,31 +83,119 @@ public class JC4JLogger {
     }
 
     /**
-     * Prints any throwable to the console and saves the message into {@link #messages}
+     * Formats the message, prints it to the console (if console output is enabled)
+     * and hands it to the {@link #appender} or saves it into {@link #messages}
+     * @param level level of the message, its colour is used in the console
+     * @param msg message to print
+     */
+    private void print(int level, String msg) {
+        var formattedMessage = pattern.getFormattedMessage(msg, name(), level);
+        if (consoleOutput)
+            System.out.println(JC4JLogLevel.getLevelColor(level) + formattedMessage + "\u001B[0m");
+        store(formattedMessage);
+    }
+
+    /**
+     * Hands the formatted message to the {@link #appender}, or saves it into {@link #messages} if there is no appender
+     * and the messages will be written to a log file
+     * @param formattedMessage message to store
+     */
+    private void store(@NotNull String formattedMessage) {
+        if (appender != null) {
+            appender.append(formattedMessage);
+        } else if (collectMessages) {
+            synchronized (messages) {
+                messages.add(formattedMessage);
+            }
+        }
+    }
+
+    /**
+     * Prints any throwable to the console and saves the message into {@link #messages} (or hands it to the {@link #appender})
      * @param t throwable to print and save its message
      */
     private void printThrowable(@NotNull Throwable t) {
         var sw = new StringWriter();
         t.printStackTrace(new PrintWriter(sw));
-        System.out.println("\u001B[31m" + sw + "\u001B[0m");
-        messages.add(sw.toString());
+        if (consoleOutput)
+            System.out.println(JC4JLogLevel.RED + sw + "\u001B[0m");
+        store(sw.toString());
     }
 
     /**
-     * Returns whether the message with given level can be printed or not
+     * Returns whether the message with given level can be printed or not.
+     * The level is checked first, so messages below the logger level cost a single bit test
      * @param msgLevel level of the message that tries to be printed
-     * @return true if the message level less or equal to the logger level
+     * @return true if the message level greater or equal to the logger level and logging isn't disabled
      */
     private boolean canPrint(@Range(from=0, to=7) int msgLevel) {
-        return isEnabled() && logLevel <= msgLevel;
+        return (levelMask & (1 << msgLevel)) != 0 && isEnabled && !isSuppressed();
+    }
+
+    /**
+     * @return true if the current thread is inside {@link #doWithoutLogging(Procedure)}
+     */
+    private boolean isSuppressed() {
+        return suppressingThreads.get() != 0 && suppression.get()[0] > 0;
+    }
+
+    /**
+     * Checks whether messages of the given level would be printed.
+     * Use it to guard building of expensive messages in hot code
+     * @param level level of the message
+     * @return true if the message would be printed
+     */
+    public boolean isEnabled(@Range(from=0, to=7) int level) {
+        return canPrint(level);
+    }
+
+    /**
+     * @return true if TRACE messages would be printed
+     */
+    public boolean isTraceEnabled() {
+        return canPrint(JC4JLogLevel.TRACE);
+    }
+
+    /**
+     * @return true if DEBUG messages would be printed
+     */
+    public boolean isDebugEnabled() {
+        return canPrint(JC4JLogLevel.DEBUG);
+    }
+
+    /**
+     * @return true if INFO messages would be printed
+     */
+    public boolean isInfoEnabled() {
+        return canPrint(JC4JLogLevel.INFO);
+    }
+
+    /**
+     * @return true if WARN messages would be printed
+     */
+    public boolean isWarnEnabled() {
+        return canPrint(JC4JLogLevel.WARN);
+    }
+
+    /**
+     * @return true if ERROR messages would be printed
+     */
+    public boolean isErrorEnabled() {
+        return canPrint(JC4JLogLevel.ERROR);
     }
 
     public void trace(String msg) {
-        if (canPrint(JC4JLogLevel.TRACE)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.TRACE);
-            System.out.println("\u001B[37m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
-        }
+        if (canPrint(JC4JLogLevel.TRACE))
+            print(JC4JLogLevel.TRACE, msg);
+    }
+
+    /**
+     * Same as {@link #trace(String)}, but the message is built only if the TRACE level is enabled
+     * @param msg function that builds the message
+     */
+    public void trace(@NotNull NoParamsFunction<String> msg) {
+        if (canPrint(JC4JLogLevel.TRACE))
+            trace(msg.apply());
     }
 
     public void trace(String msg, Throwable t) {
@@ -83,11 +206,17 @@ public class JC4JLogger {
     }
 
     public void debug(String msg) {
-        if (canPrint(JC4JLogLevel.DEBUG)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.DEBUG);
-            System.out.println("\u001B[36m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
-        }
+        if (canPrint(JC4JLogLevel.DEBUG))
+            print(JC4JLogLevel.DEBUG, msg);
+    }
+
+    /**
+     * Same as {@link #debug(String)}, but the message is built only if the DEBUG level is enabled
+     * @param msg function that builds the message
+     */
+    public void debug(@NotNull NoParamsFunction<String> msg) {
+        if (canPrint(JC4JLogLevel.DEBUG))
+            debug(msg.apply());
     }
 
     public void debug(String message, Throwable t) {
@@ -98,11 +227,17 @@ public class JC4JLogger {
     }
 
     public void info(String msg) {
-        if (canPrint(JC4JLogLevel.INFO)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.INFO);
-            System.out.println("\u001B[32m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
-        }
+        if (canPrint(JC4JLogLevel.INFO))
+            print(JC4JLogLevel.INFO, msg);
+    }
+
+    /**
+     * Same as {@link #info(String)}, but the message is built only if the INFO level is enabled
+     * @param msg function that builds the message
+     */
+    public void info(@NotNull NoParamsFunction<String> msg) {
+        if (canPrint(JC4JLogLevel.INFO))
+            info(msg.apply());
     }
 
     public void info(String msg, @NotNull Throwable t) {
@@ -113,10 +248,17 @@ public class JC4JLogger {
     }
 
     public void warn(String msg) {
-        if (canPrint(JC4JLogLevel.WARN)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.WARN);
-            System.out.println("\u001B[33m" + formattedMessage + "\u001B[0m");
-        }
+        if (canPrint(JC4JLogLevel.WARN))
+            print(JC4JLogLevel.WARN, msg);
+    }
+
+    /**
+     * Same as {@link #warn(String)}, but the message is built only if the WARN level is enabled
+     * @param msg function that builds the message
+     */
+    public void warn(@NotNull NoParamsFunction<String> msg) {
+        if (canPrint(JC4JLogLevel.WARN))
+            warn(msg.apply());
     }
 
     public void warn(String msg, @NotNull Throwable t) {
@@ -127,11 +269,17 @@ public class JC4JLogger {
     }
 
     public void error(String msg) {
-        if (canPrint(JC4JLogLevel.ERROR)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.ERROR);
-            System.out.println("\u001B[31m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
-        }
+        if (canPrint(JC4JLogLevel.ERROR))
+            print(JC4JLogLevel.ERROR, msg);
+    }
+
+    /**
+     * Same as {@link #error(String)}, but the message is built only if the ERROR level is enabled
+     * @param msg function that builds the message
+     */
+    public void error(@NotNull NoParamsFunction<String> msg) {
+        if (canPrint(JC4JLogLevel.ERROR))
+            error(msg.apply());
     }
 
     public void error(String msg, @NotNull Throwable t) {
@@ -141,15 +289,37 @@ public class JC4JLogger {
         }
     }
 
+    /**
+     * Prints the message of any registered level, including custom ones.
+     * The message is filtered by the severity of its level
+     * @param level level of the message
+     * @param msg message to print
+     * @see JC4JLogLevel#registerLevel(String, int, int, String)
+     */
+    public void log(int level, String msg) {
+        var severity = JC4JLogLevel.getSeverity(level);
+        if (severity < JC4JLogLevel.OFF && canPrint(severity))
+            print(level, msg);
+    }
+
+    /**
+     * Same as {@link #log(int, String)}, but the message is built only if it would be printed
+     * @param level level of the message
+     * @param msg function that builds the message
+     */
+    public void log(int level, @NotNull NoParamsFunction<String> msg) {
+        var severity = JC4JLogLevel.getSeverity(level);
+        if (severity < JC4JLogLevel.OFF && canPrint(severity))
+            print(level, msg.apply());
+    }
+
     /**
      * Prints the given message, stores it in the {@link #messages} and shuts down the program
      * @param msg message to be printed
      */
     public void fatal(String msg) {
         if (canPrint(JC4JLogLevel.FATAL)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.FATAL);
-            System.out.println("\u001B[31m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
+            print(JC4JLogLevel.FATAL, msg);
             System.exit(1);
         }
     }
@@ -161,10 +331,7 @@ public class JC4JLogger {
      */
     public void fatal(String msg, @NotNull Throwable t) {
         if (canPrint(JC4JLogLevel.FATAL)) {
-            var formattedMessage = pattern.getFormattedMessage(msg, name(), JC4JLogLevel.FATAL);
-            System.out.println("\u001B[31m" + formattedMessage + "\u001B[0m");
-            messages.add(formattedMessage);
-
+            print(JC4JLogLevel.FATAL, msg);
             printThrowable(t);
 
             System.exit(1);
@@ -172,37 +339,49 @@ public class JC4JLogger {
     }
 
     /**
-     * This function allows to do any other function without logging
+     * This function allows to do any other function without logging.
+     * Logging is suppressed only for the current thread (virtual or not), other threads keep logging.
+     * Calls may be nested
      * @param func returnable function without params
      * @return result of the given function
      * @param <R> type of the function's return value
      */
     public <R> R doWithoutLogging(@NotNull NoParamsFunction<R> func) {
-        disable();
-        var result = func.apply();
-        enable();
-        return result;
+        var depth = suppression.get();
+        if (depth[0]++ == 0)
+            suppressingThreads.incrementAndGet();
+        try {
+            return func.apply();
+        } finally {
+            if (--depth[0] == 0) {
+                suppressingThreads.decrementAndGet();
+                suppression.remove();
+            }
+        }
     }
 
     /**
-     * This procedure allows to do any other procedure without logging
+     * This procedure allows to do any other procedure without logging.
+     * Logging is suppressed only for the current thread (virtual or not), other threads keep logging.
+     * Calls may be nested
      * @param proc procedure that will be executed
      */
     public void doWithoutLogging(@NotNull Procedure proc) {
-        disable();
-        proc.apply();
-        enable();
+        doWithoutLogging(() -> {
+            proc.apply();
+            return null;
+        });
     }
 
     /**
-     * Disables logger
+     * Disables logger for all threads
      */
     public void disable() {
         this.isEnabled = false;
     }
 
     /**
-     * Enables logger
+     * Enables logger for all threads
      */
     public void enable() {
         this.isEnabled = true;
@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
 
 import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * This class helps to create JC4JLogger
@@ -17,6 +18,12 @@ public final class JC4JLoggerBuilder {
     private Path pathToLogFile = null;
     private int logLevel = JC4JLogLevel.ALL;
     private JC4JLoggerMessagePattern pattern = new JC4JLoggerMessagePattern();
+    private JC4JAppender appender = null;
+    private boolean consoleOutput = true;
+    private int bufferCapacity = 0;
+    private long maxFileSize = 0;
+    private Duration maxFileAge = null;
+    private boolean compressRotatedFiles = false;
 
     public JC4JLoggerBuilder() {
         this("JC4J");
@@ -58,13 +65,86 @@ public final class JC4JLoggerBuilder {
         return this;
     }
 
+    /**
+     * Specifies the appender that will receive all formatted messages instead of the in-memory message list.
+     * If the appender is specified, the path to the log file is ignored
+     * @param appender appender of the logger
+     * @return current builder with the reassigned appender
+     * @see JC4JAsyncFileAppender
+     */
+    public JC4JLoggerBuilder setAppender(@NotNull JC4JAppender appender) {
+        this.appender = appender;
+        return this;
+    }
+
+    /**
+     * Enables bounded mode: at most the given amount of messages is kept in memory, then they are appended
+     * to the log file. Without it all messages are kept in memory and written to the log file at shutdown.
+     * Requires the path to the log file
+     * @param capacity max amount of messages kept in memory
+     * @return current builder with the reassigned buffer capacity
+     * @see JC4JRollingFileAppender
+     */
+    public JC4JLoggerBuilder setBufferCapacity(int capacity) {
+        this.bufferCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Enables size-based rotation of the log file, implies bounded mode
+     * @param maxFileSize max size of the log file in bytes
+     * @return current builder with the reassigned max file size
+     * @see #setBufferCapacity(int)
+     */
+    public JC4JLoggerBuilder setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    /**
+     * Enables time-based rotation of the log file, implies bounded mode.
+     * The age is checked when buffered messages are written to the file
+     * @param maxFileAge max time a log file is written to
+     * @return current builder with the reassigned max file age
+     * @see #setBufferCapacity(int)
+     */
+    public JC4JLoggerBuilder setMaxFileAge(@NotNull Duration maxFileAge) {
+        this.maxFileAge = maxFileAge;
+        return this;
+    }
+
+    /**
+     * Specifies whether rotated log files are compressed with GZIP on a background thread. By default, they aren't
+     * @param compress whether the rotated log files are compressed
+     * @return current builder with the reassigned compression flag
+     */
+    public JC4JLoggerBuilder setCompressRotatedFiles(boolean compress) {
+        this.compressRotatedFiles = compress;
+        return this;
+    }
+
+    /**
+     * Specifies whether the logger prints messages to the console. By default, it does
+     * @param consoleOutput whether the messages are printed to the console
+     * @return current builder with the reassigned console output flag
+     */
+    public JC4JLoggerBuilder setConsoleOutput(boolean consoleOutput) {
+        this.consoleOutput = consoleOutput;
+        return this;
+    }
+
     /**
      * Builds a new logger
      * @return new logger with specified properties
      */
     @Contract(" -> new")
     public @NotNull JC4JLogger build() {
-        return new JC4JLogger(loggerName, pathToLogFile, logLevel, pattern);
+        var appender = this.appender;
+        if (appender == null && pathToLogFile != null && (bufferCapacity > 0 || maxFileSize > 0 || maxFileAge != null)) {
+            var capacity = bufferCapacity > 0 ? bufferCapacity : JC4JRollingFileAppender.DEFAULT_BUFFER_CAPACITY;
+            appender = new JC4JRollingFileAppender(pathToLogFile, capacity, maxFileSize, maxFileAge, compressRotatedFiles);
+        }
+        return new JC4JLogger(loggerName, pathToLogFile, logLevel, pattern, appender, consoleOutput);
     }
 
 }
@@ -3,14 +3,22 @@ package com.github.nedelis.jc4j.logging;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
- * This class allows logger have custom message patterns
+ * This class allows logger have custom message patterns.
+ * <p>
+ * The pattern is compiled once into a list of stamps, formatting a message only appends them
+ * one after another into a per-thread reusable buffer. The clock is read once per message,
+ * and everything that changes at most once a second is rendered once a second, so this class is safe
+ * and cheap to use from any thread
  */
 
 public final class JC4JLoggerMessagePattern {
@@ -21,7 +29,8 @@ public final class JC4JLoggerMessagePattern {
     @FunctionalInterface
     private interface Stamp {
 
-        @NotNull String formatted();
+        void appendTo(@NotNull StringBuilder out, @NotNull String message, @NotNull String loggerName, int logLevel,
+                      @NotNull Second second, int millis);
 
     }
 
@@ -29,8 +38,8 @@ public final class JC4JLoggerMessagePattern {
      'yyyy' returns the current year
      'MM' returns the current month
      'dd' returns the current day
-     'hh' returns the current hour
-     'HH' returns the current hour according to the AM/PM format
+     'hh' returns the current hour according to the AM/PM format
+     'HH' returns the current hour
      'a' returns AM or PM
      'mm' returns the current minute
      'ss' returns the current second
@@ -41,21 +50,47 @@ public final class JC4JLoggerMessagePattern {
     */
 
     /**
-     * Contains all registered stamps
+     * Stamps that change at most once a second, indexes in {@link Second#fields}
      */
-    private static final Map<String, Stamp> STAMPS = new HashMap<>() {{
-        put("yyyy", () -> LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy")));
-        put("MM", () -> LocalDate.now().format(DateTimeFormatter.ofPattern("MM")));
-        put("dd", () -> LocalDate.now().format(DateTimeFormatter.ofPattern("dd")));
-        put("hh", () -> LocalDate.now().format(DateTimeFormatter.ofPattern("hh")));
-        put("HH", () -> LocalTime.now().format(DateTimeFormatter.ofPattern("HH")));
-        put("a", () -> LocalTime.now().format(DateTimeFormatter.ofPattern("a")));
-        put("mm", () -> LocalTime.now().format(DateTimeFormatter.ofPattern("mm")));
-        put("ss", () -> LocalTime.now().format(DateTimeFormatter.ofPattern("ss")));
-        put("SSS", () -> LocalTime.now().format(DateTimeFormatter.ofPattern("SSS")));
-    }};
+    private static final List<String> TIME_STAMPS = List.of("yyyy", "MM", "dd", "hh", "HH", "a", "mm", "ss");
+
+    private static final DateTimeFormatter[] TIME_FORMATTERS = TIME_STAMPS.stream()
+            .map(DateTimeFormatter::ofPattern)
+            .toArray(DateTimeFormatter[]::new);
+
+    /**
+     * Contains all registered stamps, that don't depend on time
+     */
+    private static final Map<String, Stamp> STAMPS = Map.of(
+            "SSS", (out, message, loggerName, logLevel, second, millis) -> {
+                if (millis < 100) out.append('0');
+                if (millis < 10) out.append('0');
+                out.append(millis);
+            },
+            "msg", (out, message, loggerName, logLevel, second, millis) -> out.append(message),
+            "log-name", (out, message, loggerName, logLevel, second, millis) -> out.append(loggerName),
+            "lvl", (out, message, loggerName, logLevel, second, millis) -> out.append(JC4JLogLevel.getLevelName(logLevel))
+    );
+
+    private static final int MAX_REUSED_BUFFER_CAPACITY = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    /**
+     * Rendered time fields of one second
+     * @param epochSecond second the fields belong to
+     * @param fields rendered {@link #TIME_STAMPS}
+     * @param prefix rendered leading part of the pattern, that depends only on time
+     */
+    private record Second(long epochSecond, String[] fields, String prefix) {
+    }
 
     private final @NotNull String pattern;
+    private final Stamp[] stamps;
+    /**
+     * Amount of leading stamps, that depend only on time and are rendered into {@link Second#prefix}
+     */
+    private final int prefixLength;
+    private volatile Second cachedSecond = new Second(Long.MIN_VALUE, new String[0], "");
 
     /**
      * Creates new {@link JC4JLoggerMessagePattern} with default pattern
@@ -70,22 +105,10 @@ public final class JC4JLoggerMessagePattern {
      */
     public JC4JLoggerMessagePattern(@NotNull String pattern) {
         this.pattern = pattern;
-    }
-
-    /**
-     * Format the given message according to the pattern
-     * @param message message to be printed
-     * @param loggerName name of the logger that prints messages
-     * @param logLevel level of the message
-     * @return formatted message
-     */
-    public @NotNull String getFormattedMessage(@NotNull String message, @NotNull String loggerName, @Range(from=0, to=7) int logLevel) {
-
-        STAMPS.put("msg", () -> message);
-        STAMPS.put("log-name", () -> loggerName);
-        STAMPS.put("lvl", () -> JC4JLogLevel.getLevelName(logLevel));
 
-        var formatted = new StringBuilder();
+        var compiled = new ArrayList<Stamp>();
+        var timeOnly = new ArrayList<Boolean>();
+        var literal = new StringBuilder();
         var waitingForClosing = false;
         var stamp = new StringBuilder();
         for (char c : pattern.toCharArray()) {
@@ -94,19 +117,98 @@ public final class JC4JLoggerMessagePattern {
                 continue;
             }
             if (waitingForClosing) {
-                formatted.append(STAMPS.getOrDefault(stamp.toString(), String::new).formatted());
-                stamp = new StringBuilder();
+                var name = stamp.toString();
+                var timeIndex = TIME_STAMPS.indexOf(name);
+                if (timeIndex >= 0) {
+                    compiled.add((out, message, loggerName, logLevel, second, millis) -> out.append(second.fields()[timeIndex]));
+                    timeOnly.add(true);
+                } else if (STAMPS.containsKey(name)) {
+                    compiled.add(STAMPS.get(name));
+                    timeOnly.add(false);
+                }
+                stamp.setLength(0);
                 waitingForClosing = false;
                 continue;
             }
             if (c == '`') {
+                addLiteral(compiled, timeOnly, literal);
                 waitingForClosing = true;
                 continue;
             }
-            formatted.append(c);
+            literal.append(c);
         }
+        addLiteral(compiled, timeOnly, literal);
 
-        return formatted.toString();
+        this.stamps = compiled.toArray(Stamp[]::new);
+        var prefix = 0;
+        while (prefix < stamps.length && timeOnly.get(prefix))
+            prefix++;
+        this.prefixLength = prefix;
+    }
+
+    private static void addLiteral(@NotNull List<Stamp> compiled, @NotNull List<Boolean> timeOnly, @NotNull StringBuilder literal) {
+        if (literal.isEmpty())
+            return;
+        var text = literal.toString();
+        compiled.add((out, message, loggerName, logLevel, second, millis) -> out.append(text));
+        timeOnly.add(true);
+        literal.setLength(0);
+    }
+
+    /**
+     * Returns rendered time fields of the given second, renders them if the cached ones belong to another second
+     * @param epochSecond current second
+     * @return rendered time fields
+     */
+    private @NotNull Second second(long epochSecond) {
+        var second = cachedSecond;
+        if (second.epochSecond() == epochSecond)
+            return second;
+
+        TemporalAccessor time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+        var fields = new String[TIME_FORMATTERS.length];
+        for (int i = 0; i < fields.length; i++)
+            fields[i] = TIME_FORMATTERS[i].format(time);
+        var withoutPrefix = new Second(epochSecond, fields, "");
+        var prefix = new StringBuilder();
+        for (int i = 0; i < prefixLength; i++)
+            stamps[i].appendTo(prefix, "", "", 0, withoutPrefix, 0);
+
+        second = new Second(epochSecond, fields, prefix.toString());
+        cachedSecond = second;
+        return second;
+    }
+
+    /**
+     * Format the given message according to the pattern
+     * @param message message to be printed
+     * @param loggerName name of the logger that prints messages
+     * @param logLevel level of the message
+     * @return formatted message
+     */
+    public @NotNull String getFormattedMessage(@NotNull String message, @NotNull String loggerName,
+                                               @Range(from=0, to=JC4JLogLevel.MAX_LEVELS - 1) int logLevel) {
+        var now = System.currentTimeMillis();
+        var second = second(Math.floorDiv(now, 1000L));
+        var millis = (int) Math.floorMod(now, 1000L);
+
+        var out = BUFFER.get();
+        out.setLength(0);
+        out.append(second.prefix());
+        for (int i = prefixLength; i < stamps.length; i++)
+            stamps[i].appendTo(out, message, loggerName, logLevel, second, millis);
+        var formatted = out.toString();
+        if (out.capacity() > MAX_REUSED_BUFFER_CAPACITY)
+            BUFFER.remove();
+        return formatted;
+    }
+
+    /**
+     * @return source of the pattern
+     */
+    @Override
+    public String toString() {
+        return pattern;
     }
 
 }
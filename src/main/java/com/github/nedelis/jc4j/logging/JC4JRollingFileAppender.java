@@ -0,0 +1,219 @@
+package com.github.nedelis.jc4j.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appender that keeps at most a fixed amount of messages in memory and appends them to the log file
+ * every time the buffer fills up (and when it's closed), so memory usage doesn't grow with the uptime.
+ * <p>
+ * The log file is rotated when it would exceed the maximal size or when its segment gets older than
+ * the maximal age: the file is renamed to "name-yyyy-MM-dd-HHmmss.ext" and a new file is started.
+ * The log file left by the previous run is rotated at start. Rotated files can be compressed with GZIP
+ * on a background thread
+ * @see JC4JLoggerBuilder#setBufferCapacity(int)
+ * @see JC4JLoggerBuilder#setMaxFileSize(long)
+ * @see JC4JLoggerBuilder#setMaxFileAge(Duration)
+ */
+@SuppressWarnings("unused")
+public final class JC4JRollingFileAppender implements JC4JAppender {
+
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final DateTimeFormatter ROTATED_SUFFIX = DateTimeFormatter.ofPattern("yyyy-MM-dd-HHmmss");
+
+    /**
+     * Compresses rotated files of all appenders
+     */
+    private static final class Compressor {
+
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+            var thread = new Thread(task, "JC4J-LogCompressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+    private final Path pathToLogFile;
+    private final String[] buffer;
+    private int size = 0;
+    private final long maxFileSize;
+    private final long maxFileAgeMillis;
+    private final boolean compress;
+
+    private OutputStream out;
+    private long fileSize;
+    private long segmentStart;
+    /**
+     * Completes when all compressions started by this appender are finished
+     */
+    private CompletableFuture<Void> compressions = CompletableFuture.completedFuture(null);
+    private boolean closed = false;
+
+    /**
+     * Creates appender with {@link #DEFAULT_BUFFER_CAPACITY} and without rotation
+     * @param pathToLogFile file the messages will be appended to
+     */
+    public JC4JRollingFileAppender(@NotNull Path pathToLogFile) {
+        this(pathToLogFile, DEFAULT_BUFFER_CAPACITY, 0, null, false);
+    }
+
+    /**
+     * Creates appender and rotates the log file of the previous run if there is one
+     * @param pathToLogFile file the messages will be appended to
+     * @param bufferCapacity max amount of messages kept in memory
+     * @param maxFileSize max size of the log file in bytes, 0 or less disables size-based rotation
+     * @param maxFileAge max time a log file is written to, null disables time-based rotation
+     * @param compress whether the rotated files are compressed with GZIP
+     */
+    public JC4JRollingFileAppender(@NotNull Path pathToLogFile, int bufferCapacity, long maxFileSize,
+                                   @Nullable Duration maxFileAge, boolean compress) {
+        if (bufferCapacity < 1)
+            throw new IllegalArgumentException("Buffer capacity must be positive, but was " + bufferCapacity);
+        this.pathToLogFile = pathToLogFile;
+        this.buffer = new String[bufferCapacity];
+        this.maxFileSize = maxFileSize;
+        this.maxFileAgeMillis = maxFileAge != null ? maxFileAge.toMillis() : 0;
+        this.compress = compress;
+        this.segmentStart = System.currentTimeMillis();
+        try {
+            if (Files.size(pathToLogFile) > 0)
+                rotate();
+        } catch (IOException ignored) {
+            // there is no log file of the previous run
+        }
+    }
+
+    @Override
+    public synchronized void append(@NotNull String formattedMessage) {
+        if (closed)
+            return;
+        buffer[size++] = formattedMessage;
+        if (size == buffer.length)
+            flush();
+    }
+
+    /**
+     * Appends all buffered messages to the log file, rotating it if needed
+     */
+    public synchronized void flush() {
+        try {
+            for (int i = 0; i < size; i++) {
+                var bytes = buffer[i].getBytes(StandardCharsets.UTF_8);
+                if (needsRotation(bytes.length + LINE_SEPARATOR.length))
+                    rotate();
+                if (out == null) {
+                    out = new BufferedOutputStream(Files.newOutputStream(pathToLogFile,
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+                    fileSize = Files.size(pathToLogFile);
+                }
+                out.write(bytes);
+                out.write(LINE_SEPARATOR);
+                fileSize += bytes.length + LINE_SEPARATOR.length;
+            }
+            if (out != null)
+                out.flush();
+        } catch (IOException e) {
+            System.out.println("\u001B[31mJC4J rolling appender failed to write the log file: " + e + "\u001B[0m");
+        } finally {
+            Arrays.fill(buffer, 0, size, null);
+            size = 0;
+        }
+    }
+
+    private boolean needsRotation(int bytesToWrite) {
+        if (fileSize == 0)
+            return false;
+        return maxFileSize > 0 && fileSize + bytesToWrite > maxFileSize
+                || maxFileAgeMillis > 0 && System.currentTimeMillis() - segmentStart >= maxFileAgeMillis;
+    }
+
+    /**
+     * Renames the current log file and starts a new one
+     * @throws IOException if the log file cannot be renamed
+     */
+    private void rotate() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        var rotated = rotatedPath();
+        Files.move(pathToLogFile, rotated, StandardCopyOption.ATOMIC_MOVE);
+        fileSize = 0;
+        segmentStart = System.currentTimeMillis();
+        if (compress)
+            compressions = CompletableFuture.allOf(compressions,
+                    CompletableFuture.runAsync(() -> compress(rotated), Compressor.EXECUTOR));
+    }
+
+    private @NotNull Path rotatedPath() {
+        var fileName = pathToLogFile.getFileName().toString();
+        var dot = fileName.lastIndexOf('.');
+        var base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        var extension = dot > 0 ? fileName.substring(dot) : "";
+        var stamp = base + "-" + ROTATED_SUFFIX.format(LocalDateTime.now());
+        var rotated = pathToLogFile.resolveSibling(stamp + extension);
+        for (int i = 1; Files.exists(rotated) || Files.exists(rotated.resolveSibling(rotated.getFileName() + ".gz")); i++)
+            rotated = pathToLogFile.resolveSibling(stamp + "-" + i + extension);
+        return rotated;
+    }
+
+    /**
+     * Replaces the given file with its GZIP-compressed copy
+     * @param file rotated log file
+     */
+    private static void compress(@NotNull Path file) {
+        var compressed = file.resolveSibling(file.getFileName() + ".gz");
+        try {
+            try (var in = Files.newInputStream(file);
+                 var gzip = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                in.transferTo(gzip);
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("\u001B[31mJC4J rolling appender failed to compress [" + file + "]: " + e + "\u001B[0m");
+        }
+    }
+
+    /**
+     * Writes out buffered messages, closes the log file and waits for the pending compressions
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> pending;
+        synchronized (this) {
+            if (closed)
+                return;
+            flush();
+            closed = true;
+            pending = compressions;
+            try {
+                if (out != null)
+                    out.close();
+            } catch (IOException e) {
+                System.out.println("\u001B[31mJC4J rolling appender failed to close the log file: " + e + "\u001B[0m");
+            }
+        }
+        pending.join();
+    }
+
+}
@@ -0,0 +1,613 @@
+package com.github.nedelis.jc4j.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map built as a hash array mapped trie. {@link #with(Object, Object)} and {@link #without(Object)}
+ * return new maps, that share all nodes except the path to the changed entry with this map, so a change costs
+ * O(log32 n) time and memory instead of copying the whole map, and any map can be kept as a snapshot for free.
+ * Lookups walk at most 7 levels, each level takes 5 bits of the key hash.
+ * <p>
+ * Many changes at once are made with an {@link Editor}, a mutable map on top of a persistent one.
+ * Null keys aren't supported, null values are
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+@SuppressWarnings("unused")
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    /**
+     * Returned by the nodes when there is no such key, so null values can be stored
+     */
+    private static final Object NOT_FOUND = new Object();
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final @Nullable Node root;
+    private final int size;
+
+    private PersistentHashMap(@Nullable Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the empty map
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> @NotNull PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Creates a persistent map with the entries of the given map. The trie is built level by level
+     * from all entries at once, without intermediate maps. Persistent maps are returned as they are
+     * @param map entries of the new map
+     * @return persistent map with the same entries
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> @NotNull PersistentHashMap<K, V> of(@NotNull Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap<?, ?> persistent)
+            return (PersistentHashMap<K, V>) persistent;
+        var size = map.size();
+        if (size == 0)
+            return empty();
+        var keys = new Object[size];
+        var values = new Object[size];
+        var hashes = new int[size];
+        var order = new int[size];
+        var i = 0;
+        for (var entry : map.entrySet()) {
+            keys[i] = Objects.requireNonNull(entry.getKey(), "Null keys aren't supported");
+            values[i] = entry.getValue();
+            hashes[i] = hash(keys[i]);
+            order[i] = i;
+            i++;
+        }
+        return new PersistentHashMap<>(build(keys, values, hashes, order, 0, size, 0, new int[size]), size);
+    }
+
+    /**
+     * Builds the node of the entries order[from..to), which share the hash bits below the given shift
+     */
+    private static @NotNull Node build(Object[] keys, Object[] values, int[] hashes, int[] order, int from, int to, int shift, int[] buffer) {
+        var first = hashes[order[from]];
+        var sameHash = true;
+        for (int i = from + 1; i < to && sameHash; i++)
+            sameHash = hashes[order[i]] == first;
+        if (sameHash && to - from > 1) {
+            var array = new Object[(to - from) * 2];
+            for (int i = from; i < to; i++) {
+                array[(i - from) * 2] = keys[order[i]];
+                array[(i - from) * 2 + 1] = values[order[i]];
+            }
+            return new CollisionNode(first, array);
+        }
+
+        // counting sort of the entries by the hash fragment of this level
+        var counts = new int[MASK + 2];
+        for (int i = from; i < to; i++)
+            counts[fragment(hashes[order[i]], shift) + 1]++;
+        var bitmap = 0;
+        var slots = 0;
+        for (int f = 0; f <= MASK; f++) {
+            if (counts[f + 1] > 0) {
+                bitmap |= 1 << f;
+                slots++;
+            }
+            counts[f + 1] += counts[f];
+        }
+        var starts = Arrays.copyOf(counts, MASK + 1);
+        for (int i = from; i < to; i++)
+            buffer[from + counts[fragment(hashes[order[i]], shift)]++] = order[i];
+        System.arraycopy(buffer, from, order, from, to - from);
+
+        var array = new Object[slots * 2];
+        var slot = 0;
+        for (int f = 0; f <= MASK; f++) {
+            if ((bitmap & (1 << f)) == 0)
+                continue;
+            var start = from + starts[f];
+            var end = from + counts[f];
+            if (end - start == 1) {
+                array[slot * 2] = keys[order[start]];
+                array[slot * 2 + 1] = values[order[start]];
+            } else {
+                array[slot * 2 + 1] = build(keys, values, hashes, order, start, end, shift + BITS, buffer);
+            }
+            slot++;
+        }
+        return new BitmapNode(bitmap, array);
+    }
+
+    private static int hash(@NotNull Object key) {
+        var h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null || root == null)
+            return null;
+        var value = root.find(key, hash(key), 0);
+        return value != NOT_FOUND ? (V) value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && root != null && root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param key key of the entry
+     * @param value value of the entry
+     * @return map with the given entry, this map if it already has it
+     */
+    @Contract(pure = true)
+    public @NotNull PersistentHashMap<K, V> with(@NotNull K key, V value) {
+        var change = new Change();
+        var hash = hash(key);
+        var newRoot = root == null ? BitmapNode.EMPTY.with(key, value, hash, 0, change) : root.with(key, value, hash, 0, change);
+        if (newRoot == root)
+            return this;
+        return new PersistentHashMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * @param key key of the entry to remove
+     * @return map without the given key, this map if it doesn't have it
+     */
+    @Contract(pure = true)
+    public @NotNull PersistentHashMap<K, V> without(@NotNull Object key) {
+        if (root == null)
+            return this;
+        var newRoot = root.without(key, hash(key), 0);
+        if (newRoot == root)
+            return this;
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * @param map entries to add
+     * @return map with all given entries
+     */
+    @Contract(pure = true)
+    public @NotNull PersistentHashMap<K, V> withAll(@NotNull Map<? extends K, ? extends V> map) {
+        var result = this;
+        for (var entry : map.entrySet())
+            result = result.with(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    /**
+     * @return new mutable editor that starts with the entries of this map
+     */
+    public @NotNull Editor<K, V> editor() {
+        return new Editor<>(this);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null)
+            root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    @Override
+    public @NotNull Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public @NotNull Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Mutable map on top of a persistent map. Every change replaces the current persistent map with a changed one,
+     * so it costs O(log32 n) and {@link #toPersistent()} is free. Iterators iterate the map as it was when they
+     * were created and support removal. Editors aren't thread-safe
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     */
+    public static final class Editor<K, V> extends AbstractMap<K, V> {
+
+        private PersistentHashMap<K, V> current;
+
+        private Editor(@NotNull PersistentHashMap<K, V> current) {
+            this.current = current;
+        }
+
+        /**
+         * @return persistent map with the current entries
+         */
+        public @NotNull PersistentHashMap<K, V> toPersistent() {
+            return current;
+        }
+
+        @Override
+        public V get(Object key) {
+            return current.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return current.containsKey(key);
+        }
+
+        @Override
+        public V put(@NotNull K key, V value) {
+            var old = current.get(key);
+            current = current.with(key, value);
+            return old;
+        }
+
+        @Override
+        public V remove(Object key) {
+            if (key == null)
+                return null;
+            var old = current.get(key);
+            current = current.without(key);
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            current = empty();
+        }
+
+        @Override
+        public int size() {
+            return current.size();
+        }
+
+        @Override
+        public @NotNull Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<K, V>> iterator() {
+                    var iterator = current.entrySet().iterator();
+                    return new Iterator<>() {
+                        private Entry<K, V> last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<K, V> next() {
+                            return last = iterator.next();
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null)
+                                throw new IllegalStateException();
+                            current = current.without(last.getKey());
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return current.size();
+                }
+            };
+        }
+
+    }
+
+    /**
+     * Result of an insertion
+     */
+    private static final class Change {
+        boolean added;
+    }
+
+    private interface Node {
+
+        /**
+         * @return value of the key or {@link #NOT_FOUND}
+         */
+        Object find(@NotNull Object key, int hash, int shift);
+
+        /**
+         * @return node with the entry, this node if it already has it
+         */
+        @NotNull Node with(@NotNull Object key, Object value, int hash, int shift, @NotNull Change change);
+
+        /**
+         * @return node without the key, this node if it doesn't have it, null if the node becomes empty
+         */
+        @Nullable Node without(@NotNull Object key, int hash, int shift);
+
+        /**
+         * @return whether the node holds one entry and no child nodes, so it can be inlined into its parent
+         */
+        boolean isSingleEntry();
+
+        /**
+         * @return key/value pairs and child nodes (with null keys) of the node
+         */
+        Object @NotNull [] array();
+
+        void forEach(@NotNull BiConsumer<Object, Object> action);
+
+    }
+
+    /**
+     * Node with up to 32 slots, the bitmap tells which hash fragments are present.
+     * Each slot is a key/value pair or a null key and a child node
+     */
+    private record BitmapNode(int bitmap, Object @NotNull [] array) implements Node {
+
+        private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        @Override
+        public Object find(@NotNull Object key, int hash, int shift) {
+            Node node = this;
+            while (node instanceof BitmapNode bitmapNode) {
+                var bit = 1 << fragment(hash, shift);
+                if ((bitmapNode.bitmap & bit) == 0)
+                    return NOT_FOUND;
+                var index = Integer.bitCount(bitmapNode.bitmap & (bit - 1)) * 2;
+                var k = bitmapNode.array[index];
+                if (k != null)
+                    return key.equals(k) ? bitmapNode.array[index + 1] : NOT_FOUND;
+                node = (Node) bitmapNode.array[index + 1];
+                shift += BITS;
+            }
+            return node.find(key, hash, shift);
+        }
+
+        @Override
+        public @NotNull Node with(@NotNull Object key, Object value, int hash, int shift, @NotNull Change change) {
+            var bit = 1 << fragment(hash, shift);
+            var index = Integer.bitCount(bitmap & (bit - 1)) * 2;
+            if ((bitmap & bit) == 0) {
+                var newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, index);
+                newArray[index] = key;
+                newArray[index + 1] = value;
+                System.arraycopy(array, index, newArray, index + 2, array.length - index);
+                change.added = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+            var k = array[index];
+            var v = array[index + 1];
+            if (k == null) {
+                var child = (Node) v;
+                var newChild = child.with(key, value, hash, shift + BITS, change);
+                return newChild == child ? this : replace(index, null, newChild);
+            }
+            if (key.equals(k))
+                return v == value ? this : replace(index, k, value);
+            change.added = true;
+            return replace(index, null, pair(k, v, key, value, hash, shift + BITS));
+        }
+
+        @Override
+        public @Nullable Node without(@NotNull Object key, int hash, int shift) {
+            var bit = 1 << fragment(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            var index = Integer.bitCount(bitmap & (bit - 1)) * 2;
+            var k = array[index];
+            if (k == null) {
+                var child = (Node) array[index + 1];
+                var newChild = child.without(key, hash, shift + BITS);
+                if (newChild == child)
+                    return this;
+                if (newChild == null)
+                    return remove(index, bit);
+                if (newChild.isSingleEntry())
+                    return replace(index, newChild.array()[0], newChild.array()[1]);
+                return replace(index, null, newChild);
+            }
+            return key.equals(k) ? remove(index, bit) : this;
+        }
+
+        @Override
+        public boolean isSingleEntry() {
+            return array.length == 2 && array[0] != null;
+        }
+
+        @Override
+        public void forEach(@NotNull BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] != null)
+                    action.accept(array[i], array[i + 1]);
+                else
+                    ((Node) array[i + 1]).forEach(action);
+            }
+        }
+
+        private @NotNull BitmapNode replace(int index, @Nullable Object key, @Nullable Object value) {
+            var newArray = array.clone();
+            newArray[index] = key;
+            newArray[index + 1] = value;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        private @Nullable BitmapNode remove(int index, int bit) {
+            if (bitmap == bit)
+                return null;
+            var newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+            return new BitmapNode(bitmap & ~bit, newArray);
+        }
+
+        /**
+         * Creates the node of two entries, whose hashes are equal below the given shift
+         */
+        private static @NotNull Node pair(@NotNull Object key1, Object value1, @NotNull Object key2, Object value2, int hash2, int shift) {
+            var hash1 = hash(key1);
+            if (hash1 == hash2)
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            var change = new Change();
+            return EMPTY.with(key1, value1, hash1, shift, change).with(key2, value2, hash2, shift, change);
+        }
+
+    }
+
+    /**
+     * Node of the keys with the same hash
+     */
+    private record CollisionNode(int hash, Object @NotNull [] array) implements Node {
+
+        @Override
+        public Object find(@NotNull Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return NOT_FOUND;
+            var index = indexOf(key);
+            return index >= 0 ? array[index + 1] : NOT_FOUND;
+        }
+
+        @Override
+        public @NotNull Node with(@NotNull Object key, Object value, int hash, int shift, @NotNull Change change) {
+            if (hash != this.hash) {
+                // the new key differs from the collided ones at this level or deeper
+                var node = new BitmapNode(1 << fragment(this.hash, shift), new Object[]{null, this});
+                return node.with(key, value, hash, shift, change);
+            }
+            var index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value)
+                    return this;
+                var newArray = array.clone();
+                newArray[index + 1] = value;
+                return new CollisionNode(hash, newArray);
+            }
+            var newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            change.added = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public @Nullable Node without(@NotNull Object key, int hash, int shift) {
+            if (hash != this.hash)
+                return this;
+            var index = indexOf(key);
+            if (index < 0)
+                return this;
+            if (array.length == 2)
+                return null;
+            var newArray = new Object[array.length - 2];
+            System.arraycopy(array, 0, newArray, 0, index);
+            System.arraycopy(array, index + 2, newArray, index, array.length - index - 2);
+            return new CollisionNode(hash, newArray);
+        }
+
+        @Override
+        public boolean isSingleEntry() {
+            return array.length == 2;
+        }
+
+        @Override
+        public void forEach(@NotNull BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2)
+                action.accept(array[i], array[i + 1]);
+        }
+
+        private int indexOf(@NotNull Object key) {
+            for (int i = 0; i < array.length; i += 2)
+                if (key.equals(array[i]))
+                    return i;
+            return -1;
+        }
+
+    }
+
+    /**
+     * Depth-first iterator over the entries of a trie
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * Arrays of the nodes on the path to the current entry and the positions in them
+         */
+        private final Object[][] arrays = new Object[8][];
+        private final int[] positions = new int[8];
+        private int depth = -1;
+        private Object nextKey;
+        private Object nextValue;
+        private boolean hasNext;
+
+        private EntryIterator(@Nullable Node root) {
+            if (root != null) {
+                arrays[0] = root.array();
+                depth = 0;
+            }
+            advance();
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                var array = arrays[depth];
+                var position = positions[depth];
+                if (position >= array.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth] = position + 2;
+                if (array[position] != null) {
+                    nextKey = array[position];
+                    nextValue = array[position + 1];
+                    hasNext = true;
+                    return;
+                }
+                depth++;
+                arrays[depth] = ((Node) array[position + 1]).array();
+                positions[depth] = 0;
+            }
+            hasNext = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<K, V> next() {
+            if (!hasNext)
+                throw new NoSuchElementException();
+            var entry = new SimpleImmutableEntry<>((K) nextKey, (V) nextValue);
+            advance();
+            return entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+import com.github.nedelis.jc4j.ConfigBundle;
+import com.github.nedelis.jc4j.ConfigBundleBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+public class ConfigBundleTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void writeConfigs() throws IOException {
+        Files.writeString(dir.resolve("db.json"), "{\"pool\": {\"size\": 8}, \"url\": \"jdbc:h2:mem\"}");
+        Files.writeString(dir.resolve("ui.json"), "{\"theme\": \"dark\"}");
+        Files.writeString(dir.resolve("db.dev.json"), "{\"pool\": {\"size\": 2}}");
+        Files.writeString(dir.resolve("my.mod.json"), "{\"enabled\": true}");
+        Files.writeString(dir.resolve("ui.settings.json"), "{\"scale\": 2}");
+        Files.writeString(dir.resolve("notes.txt"), "not a config");
+    }
+
+    @Test
+    void testNamespaces() {
+        var bundle = ConfigBundle.of(dir.toFile());
+        // without a profile every file is a namespace
+        Assertions.assertEquals(Set.of("db", "db.dev", "ui", "ui.settings", "my.mod"), bundle.namespaces());
+        Assertions.assertEquals(bundle.namespaces(), bundle.loadTimes().keySet());
+        Assertions.assertEquals(dir.toFile(), bundle.directory());
+    }
+
+    @Test
+    void testLookups() {
+        var bundle = ConfigBundle.of(dir.toFile());
+        Assertions.assertEquals(8, bundle.getAsJavaValue("db", "pool.size", JSONValueType.INT));
+        Assertions.assertEquals("dark", bundle.get("ui", "theme").value());
+        Assertions.assertEquals(true, bundle.get("my.mod", "enabled").value());
+        Assertions.assertEquals("jdbc:h2:mem", bundle.config("db").getOrDefault("url").value());
+
+        Assertions.assertNull(bundle.get("db", "pool.missing").value());
+        Assertions.assertNull(bundle.get("unknown", "theme").value());
+        Assertions.assertNull(bundle.getAsJavaValue("unknown", "theme", JSONValueType.STR));
+        Assertions.assertNull(bundle.config("unknown"));
+    }
+
+    @Test
+    void testProfileIsLayeredOverItsConfig() {
+        var bundle = new ConfigBundleBuilder(dir.toFile()).setProfile("dev").build();
+        Assertions.assertEquals(Set.of("db", "ui", "ui.settings", "my.mod"), bundle.namespaces());
+        Assertions.assertEquals(2, bundle.getAsJavaValue("db", "pool.size", JSONValueType.INT));
+        Assertions.assertEquals("jdbc:h2:mem", bundle.get("db", "url").value());
+        Assertions.assertEquals(List.of(dir.resolve("db.dev.json").toFile()), bundle.config("db").layerFiles());
+        // the profile is a layer, the values of the base config stay as they are
+        Assertions.assertEquals(Map.of("size", 8.0), bundle.config("db").config().get("pool").value());
+    }
+
+    @Test
+    void testBuilderOptions() {
+        var pool = new ForkJoinPool(2);
+        try {
+            var bundle = new ConfigBundleBuilder(dir.toFile())
+                    .setPool(pool)
+                    .setMemoryMapped(true)
+                    .build();
+            Assertions.assertEquals(Set.of("db", "db.dev", "ui", "ui.settings", "my.mod"), bundle.namespaces());
+            Assertions.assertTrue(bundle.config("db").isMemoryMapped());
+            Assertions.assertEquals(JSONValue.of("dark"), bundle.get("ui", "theme"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testMissingDirectory() {
+        var bundle = ConfigBundle.of(dir.resolve("missing").toFile());
+        Assertions.assertEquals(Set.of(), bundle.namespaces());
+    }
+
+}
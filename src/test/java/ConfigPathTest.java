@@ -0,0 +1,77 @@
+import com.github.nedelis.jc4j.ConfigPath;
+import com.github.nedelis.jc4j.ConfigWrapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class ConfigPathTest {
+
+    private static final Map<String, Object> config = Map.of(
+            "db", Map.of("pool", List.of(1.0, 2.0, Map.of("maxSize", 16.0))),
+            "dotted.key", true
+    );
+
+    @Test
+    void testResolve() {
+        Assertions.assertEquals(16.0, ConfigPath.compile("db.pool[2].maxSize").resolveRaw(config));
+        Assertions.assertEquals(2.0, ConfigPath.compile("db.pool[1]").resolveRaw(config));
+        Assertions.assertEquals(true, ConfigPath.compile("dotted\\.key").resolveRaw(config));
+        Assertions.assertNull(ConfigPath.compile("db.pool[3]").resolveRaw(config));
+        Assertions.assertNull(ConfigPath.compile("db.pool.maxSize").resolveRaw(config));
+    }
+
+    @Test
+    void testNestedNumberGetters(@TempDir Path dir) throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, "{\"db\": {\"pool\": [1, \"two\", {\"maxSize\": 16.5}], \"port\": 8080}}");
+        var wrapper = ConfigWrapper.of(file.toFile(), Map.of("db", Map.of("timeout", 30), "big", Map.of("id", Long.MAX_VALUE)));
+
+        Assertions.assertEquals(16, wrapper.getInt(ConfigPath.compile("db.pool[2].maxSize"), 0));
+        Assertions.assertEquals(16.5, wrapper.getDouble(ConfigPath.compile("db.pool[2].maxSize"), 0));
+        Assertions.assertEquals(8080L, wrapper.getLong(ConfigPath.compile("db.port"), 0));
+        Assertions.assertEquals(1, wrapper.getInt(ConfigPath.compile("db.pool[0]"), -1));
+        Assertions.assertEquals(-1, wrapper.getInt(ConfigPath.compile("db.pool[1]"), -1));
+        Assertions.assertEquals(-1, wrapper.getInt(ConfigPath.compile("db.pool[3]"), -1));
+        Assertions.assertEquals(30, wrapper.getInt(ConfigPath.compile("db.timeout"), -1));
+        Assertions.assertEquals(Long.MAX_VALUE, wrapper.getLong(ConfigPath.compile("big.id"), 0));
+    }
+
+    @Test
+    void testNestedNumbersAreReadWithoutBoxing(@TempDir Path dir) throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, "{\"db\": {\"pool\": [1, 2, {\"maxSize\": 16.5}], \"port\": 8080}}");
+        var wrapper = ConfigWrapper.of(file.toFile(), Map.of());
+        var maxSize = ConfigPath.compile("db.pool[2].maxSize");
+        var port = ConfigPath.compile("db.port");
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var thread = Thread.currentThread().getId();
+
+        long allocated = 0;
+        for (int round = 0; round < 2; round++) {
+            var before = threads.getThreadAllocatedBytes(thread);
+            long sum = 0;
+            for (int i = 0; i < 10_000; i++)
+                sum += wrapper.getInt(maxSize, 0) + wrapper.getLong(port, 0) + (long) wrapper.getDouble(maxSize, 0);
+            allocated = threads.getThreadAllocatedBytes(thread) - before;
+            Assertions.assertEquals(10_000L * (16 + 8080 + 16), sum);
+        }
+        // a boxed Double per call would take at least 16 bytes
+        Assertions.assertTrue(allocated < 30_000, "allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void testMalformedPaths() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConfigPath.compile("db..pool"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConfigPath.compile("db.pool[x]"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConfigPath.compile("db.pool[1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConfigPath.compile("[1]"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ConfigPath.compile("db.pool[1]size"));
+    }
+
+}
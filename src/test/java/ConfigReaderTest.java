@@ -0,0 +1,64 @@
+import com.github.nedelis.jc4j.GsonConfigSerializer;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConfigReaderTest {
+
+    private static final String REJECTED = "rejected";
+
+    private static final List<String> DOCUMENTS = List.of(
+            "{}",
+            "  {}  \n ",
+            "{\"a\": 1, \"b\": [1, 2.5, {\"c\": null}], \"d\": {\"e\": \"f\"}, \"g\": true}",
+            "{a: 'b', /* comment */ \"c\": 1, \"n\": NaN}",
+            "{\"a\": {\"b\": 1, \"b\": 2}}",
+            "{\"a\": 1, \"a\": 2}",
+            "{} x",
+            "{}{}",
+            "{\"a\": 1} ]",
+            "{} // comment",
+            "{\"a\": }",
+            "{\"a\" 1}",
+            "{\"a\": [1, 2}",
+            "{\"a\": 1,}",
+            "\"string\"",
+            "[1]"
+    );
+
+    @Test
+    void testSameDocumentsAsGson() {
+        for (var document : DOCUMENTS)
+            Assertions.assertEquals(readWithGson(document), read(document), document);
+    }
+
+    @Test
+    void testEmptyDocument() throws IOException {
+        Assertions.assertEquals(Map.of(), GsonConfigSerializer.PRETTY.read(new StringReader(" \n")));
+    }
+
+    private static Object readWithGson(String document) {
+        try {
+            return new Gson().fromJson(new StringReader(document), Map.class);
+        } catch (JsonParseException e) {
+            return REJECTED;
+        }
+    }
+
+    private static Object read(String document) {
+        try {
+            var values = new HashMap<String, Object>();
+            GsonConfigSerializer.PRETTY.read(new StringReader(document)).forEach((key, value) -> values.put(key, value.value()));
+            return values;
+        } catch (IOException | JsonParseException e) {
+            return REJECTED;
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+import com.github.nedelis.jc4j.ConfigSerializer;
+import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.ConfigWrapperBuilder;
+import com.github.nedelis.jc4j.GsonConfigSerializer;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+public class ConfigSaveTest {
+
+    /**
+     * Counts the writes and fails them on demand, after a part of the output was written
+     */
+    private static final class CountingSerializer implements ConfigSerializer {
+
+        final AtomicInteger writes = new AtomicInteger();
+        volatile boolean failing = false;
+
+        @Override
+        public @NotNull Map<String, JSONValue> read(@NotNull Reader reader) throws IOException {
+            return GsonConfigSerializer.PRETTY.read(reader);
+        }
+
+        @Override
+        public void write(@NotNull Map<?, ?> content, @NotNull Writer writer) throws IOException {
+            if (failing) {
+                writer.write("{\"partial\": ");
+                throw new IOException("No space left on device");
+            }
+            writes.incrementAndGet();
+            GsonConfigSerializer.PRETTY.write(content, writer);
+        }
+
+    }
+
+    /**
+     * Started in a separate JVM by {@link #testPendingSaveIsFlushedAtShutdown()}
+     */
+    public static final class ExitWithPendingSave {
+
+        public static void main(String[] args) {
+            var wrapper = new ConfigWrapperBuilder(new File(args[0]))
+                    .setDefaultConfig(Map.of("saved", false))
+                    .setWriteBehind(Duration.ofHours(1))
+                    .build();
+            wrapper.putInConfigAndSave("saved", JSONValue.of(true));
+        }
+
+    }
+
+    @TempDir
+    Path dir;
+
+    private final CountingSerializer serializer = new CountingSerializer();
+
+    private ConfigWrapper load(@NotNull Path file, @NotNull Duration writeBehind) {
+        return new ConfigWrapperBuilder(file.toFile())
+                .setDefaultConfig(Map.of("a", 0))
+                .setSerializer(serializer)
+                .setWriteBehind(writeBehind)
+                .build();
+    }
+
+    private static Map<String, JSONValue> read(@NotNull Path file) throws IOException {
+        return GsonConfigSerializer.PRETTY.read(new StringReader(Files.readString(file)));
+    }
+
+    private static void await(@NotNull BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Assertions.assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void testFailedSaveKeepsOldFile() throws IOException {
+        var file = dir.resolve("config.json");
+        var wrapper = load(file, Duration.ofHours(1));
+        var before = Files.readString(file);
+
+        wrapper.putInConfig("a", JSONValue.of(1));
+        serializer.failing = true;
+        Assertions.assertFalse(wrapper.saveConfig());
+        Assertions.assertEquals(before, Files.readString(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(List.of(file), files.toList());
+        }
+
+        serializer.failing = false;
+        Assertions.assertTrue(wrapper.saveConfig());
+        Assertions.assertEquals(Map.of("a", JSONValue.of(1.0)), read(file));
+    }
+
+    @Test
+    void testWriteBehindCoalescesSaves() throws Exception {
+        var file = dir.resolve("config.json");
+        var wrapper = load(file, Duration.ofMillis(200));
+        var writes = serializer.writes.get();
+
+        for (int i = 1; i <= 10; i++)
+            Assertions.assertTrue(wrapper.putInConfigAndSave("a", JSONValue.of(i)));
+        Assertions.assertEquals(writes, serializer.writes.get());
+        await(() -> serializer.writes.get() > writes);
+        Thread.sleep(300);
+        Assertions.assertEquals(writes + 1, serializer.writes.get());
+        Assertions.assertEquals(Map.of("a", JSONValue.of(10.0)), read(file));
+    }
+
+    @Test
+    void testFlushSavesPendingChanges() throws IOException {
+        var file = dir.resolve("config.json");
+        var wrapper = load(file, Duration.ofHours(1));
+        var writes = serializer.writes.get();
+
+        wrapper.putInConfigAndSave("a", JSONValue.of(1));
+        wrapper.putAllInConfigAndSave(Map.of("b", JSONValue.of(2)));
+        Assertions.assertEquals(Map.of("a", JSONValue.of(0.0)), read(file));
+        Assertions.assertTrue(wrapper.flush());
+        Assertions.assertEquals(Map.of("a", JSONValue.of(1.0), "b", JSONValue.of(2.0)), read(file));
+        Assertions.assertTrue(wrapper.flush());
+        Assertions.assertEquals(writes + 1, serializer.writes.get());
+    }
+
+    @Test
+    void testFailedWriteBehindSaveIsRetried() throws Exception {
+        var file = dir.resolve("config.json");
+        var wrapper = load(file, Duration.ofMillis(20));
+
+        serializer.failing = true;
+        wrapper.putInConfigAndSave("a", JSONValue.of(1));
+        Thread.sleep(200);
+        Assertions.assertEquals(Map.of("a", JSONValue.of(0.0)), read(file));
+
+        serializer.failing = false;
+        await(() -> {
+            try {
+                return read(file).equals(Map.of("a", JSONValue.of(1.0)));
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    void testPendingSaveIsFlushedAtShutdown() throws Exception {
+        var file = dir.resolve("config.json");
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        var process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ExitWithPendingSave.class.getName(), file.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        Assertions.assertTrue(process.waitFor(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, process.exitValue());
+        Assertions.assertEquals(Map.of("saved", JSONValue.of(true)), read(file));
+    }
+
+}
@@ -0,0 +1,189 @@
+import com.github.nedelis.jc4j.ConfigPath;
+import com.github.nedelis.jc4j.ConfigSerializer;
+import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.ConfigWrapperBuilder;
+import com.github.nedelis.jc4j.GsonConfigSerializer;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConfigSnapshotTest {
+
+    private static final String CONFIG = """
+            {
+              "name": "server \\u00e9",
+              "enabled": true,
+              "disabled": false,
+              "missing": null,
+              "db": {"pool": [1, 2, {"maxSize": 16, "tags": ["a", "b", "a"]}], "url": "jdbc:h2:mem", "empty": {}},
+              "matrix": [[1, 2], [], [[3]]],
+              "numbers": {
+                "zero": 0,
+                "negativeZero": -0.0,
+                "one": 1,
+                "negative": -1,
+                "varIntEdge": 64,
+                "negativeVarIntEdge": -65,
+                "twoBytes": 300,
+                "intMax": 2147483647,
+                "intMin": -2147483648,
+                "aboveInt": 2147483648,
+                "belowInt": -2147483649,
+                "long": 9007199254740993,
+                "fraction": 0.1,
+                "negativeFraction": -1.5e-3,
+                "huge": 1e300,
+                "tiny": 4.9e-324
+              }
+            }
+            """;
+
+    /**
+     * Counts how often the json file is actually parsed
+     */
+    private static final class CountingSerializer implements ConfigSerializer {
+
+        final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public @NotNull Map<String, JSONValue> read(@NotNull Reader reader) throws IOException {
+            reads.incrementAndGet();
+            return GsonConfigSerializer.PRETTY.read(reader);
+        }
+
+        @Override
+        public void write(@NotNull Map<?, ?> content, @NotNull Writer writer) throws IOException {
+            GsonConfigSerializer.PRETTY.write(content, writer);
+        }
+
+    }
+
+    @TempDir
+    Path dir;
+
+    private final CountingSerializer serializer = new CountingSerializer();
+
+    private ConfigWrapper load(@NotNull Path file, boolean snapshots) {
+        return new ConfigWrapperBuilder(file.toFile())
+                .setSerializer(serializer)
+                .setSnapshotCache(snapshots)
+                .build();
+    }
+
+    private static Path snapshotOf(@NotNull Path file) {
+        return file.resolveSibling(file.getFileName() + ".snapshot");
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var parsed = load(file, false).config();
+
+        var first = load(file, true);
+        Assertions.assertTrue(Files.exists(snapshotOf(file)));
+        Assertions.assertEquals(2, serializer.reads.get());
+        var cached = load(file, true);
+        Assertions.assertEquals(2, serializer.reads.get());
+
+        Assertions.assertEquals(parsed, first.config());
+        Assertions.assertEquals(parsed, cached.config());
+        Assertions.assertEquals(16, cached.getInt(ConfigPath.compile("db.pool[2].maxSize"), 0));
+        Assertions.assertEquals(List.of("a", "b", "a"),
+                cached.get(ConfigPath.compile("db.pool[2].tags")).value());
+        Assertions.assertEquals(Map.of(), cached.get(ConfigPath.compile("db.empty")).value());
+        Assertions.assertEquals(List.of(), cached.get(ConfigPath.compile("matrix[1]")).value());
+        Assertions.assertEquals(3.0, cached.get(ConfigPath.compile("matrix[2][0][0]")).value());
+        Assertions.assertNull(cached.get("missing").value());
+        Assertions.assertTrue(cached.config().containsKey("missing"));
+    }
+
+    @Test
+    void testNumbers() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var parsed = load(file, false);
+        load(file, true);
+        var cached = load(file, true);
+        Assertions.assertEquals(2, serializer.reads.get());
+
+        for (var key : List.of("zero", "negativeZero", "one", "negative", "varIntEdge", "negativeVarIntEdge", "twoBytes", "intMax",
+                "intMin", "aboveInt", "belowInt", "long", "fraction", "negativeFraction", "huge", "tiny")) {
+            var path = ConfigPath.compile("numbers." + key);
+            var expected = (Double) parsed.get(path).value();
+            var actual = (Double) cached.get(path).value();
+            Assertions.assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), key);
+        }
+        Assertions.assertEquals(Integer.MIN_VALUE, cached.getInt(ConfigPath.compile("numbers.intMin"), 0));
+        Assertions.assertEquals(2147483648L, cached.getLong(ConfigPath.compile("numbers.aboveInt"), 0));
+    }
+
+    @Test
+    void testStaleSnapshotIsIgnored() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, "{\"port\": 1111}");
+        load(file, true);
+        var modified = Files.getLastModifiedTime(file);
+
+        // same size and modification time, only the hash of the content tells the difference
+        Files.writeString(file, "{\"port\": 2222}");
+        Files.setLastModifiedTime(file, modified);
+        Assertions.assertEquals(2222, load(file, true).getInt("port"));
+        Assertions.assertEquals(2, serializer.reads.get());
+
+        Assertions.assertEquals(2222, load(file, true).getInt("port"));
+        Assertions.assertEquals(2, serializer.reads.get());
+    }
+
+    @Test
+    void testCorruptedSnapshotIsIgnored() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var parsed = load(file, false).config();
+        load(file, true);
+        var snapshot = snapshotOf(file);
+        var valid = Files.readAllBytes(snapshot);
+
+        var truncated = Arrays.copyOf(valid, valid.length / 2);
+        var garbage = new byte[valid.length];
+        Arrays.fill(garbage, (byte) 0x7F);
+        // a flipped bit inside a string still decodes, only the hash of the snapshot finds it
+        var flipped = valid.clone();
+        flipped[new String(valid, StandardCharsets.ISO_8859_1).indexOf("jdbc")] ^= 0x01;
+        var header = Arrays.copyOf(valid, 12);
+        for (var corrupted : List.of(truncated, garbage, flipped, header, new byte[0])) {
+            Files.write(snapshot, corrupted);
+            var reads = serializer.reads.get();
+            Assertions.assertEquals(parsed, load(file, true).config());
+            Assertions.assertEquals(reads + 1, serializer.reads.get());
+            // the snapshot is rewritten and used again
+            Assertions.assertArrayEquals(valid, Files.readAllBytes(snapshot));
+            Assertions.assertEquals(parsed, load(file, true).config());
+            Assertions.assertEquals(reads + 1, serializer.reads.get());
+        }
+    }
+
+    @Test
+    void testDeleteRemovesSnapshot() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var wrapper = load(file, true);
+        Assertions.assertTrue(Files.exists(snapshotOf(file)));
+        Assertions.assertTrue(wrapper.delete());
+        Assertions.assertFalse(Files.exists(file));
+        Assertions.assertFalse(Files.exists(snapshotOf(file)));
+    }
+
+}
@@ -0,0 +1,69 @@
+import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.ConfigWrapperBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class ConfigWatcherTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testOwnSaveDoesNotReload() throws Exception {
+        var file = dir.resolve("config.json");
+        var wrapper = ConfigWrapper.of(file.toFile(), Map.of("a", 1));
+        BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<>();
+        try (var watcher = wrapper.watch(Duration.ofMillis(50)).addListener((w, keys) -> changes.add(keys))) {
+            Assertions.assertTrue(watcher.isRunning());
+            Assertions.assertTrue(wrapper.putInConfigAndSave("a", JSONValue.of(2)));
+            wrapper.putInConfig("b", JSONValue.of("unsaved"));
+            Assertions.assertNull(changes.poll(500, TimeUnit.MILLISECONDS));
+            Assertions.assertEquals("unsaved", wrapper.get("b").value());
+
+            Files.writeString(file, "{\"a\": 3}");
+            Assertions.assertEquals(Set.of("a", "b"), changes.poll(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(3.0, wrapper.get("a").value());
+        }
+    }
+
+    @Test
+    void testLayerChangesAreReloaded() throws Exception {
+        var profile = dir.resolve("config.dev.json");
+        var hostLayer = dir.resolve("host").resolve("host.json");
+        Files.writeString(profile, "{\"a\": 2}");
+        Files.createDirectories(hostLayer.getParent());
+        var wrapper = new ConfigWrapperBuilder(dir.resolve("config.json").toFile())
+                .setDefaultConfig(Map.of("a", 1, "b", 1))
+                .addProfile("dev")
+                .addLayer(hostLayer.toFile())
+                .build();
+        Assertions.assertEquals(2, wrapper.getInt("a"));
+
+        BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<>();
+        try (var watcher = wrapper.watch(Duration.ofMillis(50)).addListener((w, keys) -> changes.add(keys))) {
+            Assertions.assertTrue(watcher.isRunning());
+            Files.writeString(profile, "{\"a\": 3}");
+            Assertions.assertEquals(Set.of("a"), changes.poll(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(3, wrapper.getInt("a"));
+
+            Files.writeString(hostLayer, "{\"b\": 5}");
+            Assertions.assertEquals(Set.of("b"), changes.poll(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(5, wrapper.getInt("b"));
+
+            Files.delete(profile);
+            Assertions.assertEquals(Set.of("a"), changes.poll(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, wrapper.getInt("a"));
+        }
+    }
+
+}
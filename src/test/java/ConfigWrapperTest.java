@@ -1,11 +1,27 @@
+import com.github.nedelis.jc4j.ConfigSchema;
+import com.github.nedelis.jc4j.ConfigSchemaBuilder;
 import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.ConfigWrapperBuilder;
+import com.github.nedelis.jc4j.JC4JConfig;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
 import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class ConfigWrapperTest {
 
@@ -22,10 +38,107 @@ public class ConfigWrapperTest {
     @Test
     void testConfigGetFunctionsAndConversion() {
         Assertions.assertEquals(10, wrapper.getAsJavaValue("var1", JSONValueType.INT));
+        Assertions.assertEquals(10, wrapper.getInt("var1"));
+        Assertions.assertEquals(10D, wrapper.getDouble("var1"));
+        Assertions.assertEquals(-1, wrapper.getInt("var2", -1));
+    }
+
+    record Section(String type) {}
+    record Bound(int var1, String var2, Section var3, boolean missing) {}
+
+    @Test
+    void testBinding() {
+        Assertions.assertEquals(new Bound(10, "some var", new Section("dict"), false), wrapper.bind(Bound.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> wrapper.bind(Runnable.class));
+    }
+
+    @JC4JConfig
+    interface Typed {
+        int var1();
+        String var2();
+        @JC4JConfig.Key("var3.type") String type();
+    }
+
+    @Test
+    void testGeneratedAccessors() {
+        Typed typed = new ConfigWrapperTest_TypedImpl(wrapper);
+        Assertions.assertEquals(10, typed.var1());
+        Assertions.assertEquals("some var", typed.var2());
+        Assertions.assertEquals("dict", typed.type());
+    }
+
+    @Test
+    void testSchemaViolations() {
+        var schema = new ConfigSchemaBuilder()
+                .required("var1", ConfigSchema.of(JSONValueType.INT))
+                .required("var3", new ConfigSchemaBuilder().required("type", ConfigSchema.of(JSONValueType.INT)).build())
+                .required("var4", ConfigSchema.any())
+                .build();
+        Assertions.assertEquals(List.of("var3.type: expected INT, but was string", "var4: required value is missing"),
+                schema.validate(wrapper.defaultConfig()));
     }
 
     @Test
     void testConfigRuntimeChange() {
+        wrapper.putInConfig("list", JSONValue.of(List.of("a", "b")));
+        var list = wrapper.getCachedAsJavaValue("list", JSONValueType.JS_VAL_LIST_VIEW);
+        Assertions.assertSame(list, wrapper.getCachedAsJavaValue("list", JSONValueType.JS_VAL_LIST_VIEW));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> list.add(JSONValue.of("c")));
+
+        wrapper.putInConfig("list", JSONValue.of(List.of("c")));
+        Assertions.assertEquals(List.of(JSONValue.of("c")), wrapper.getCachedAsJavaValue("list", JSONValueType.JS_VAL_LIST_VIEW));
+    }
+
+    @Test
+    void testCopySharesResolvedLayers(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("layered.json"), "{\"a\": 1, \"b\": 1}");
+        Files.writeString(dir.resolve("layered.dev.json"), "{\"b\": 2}");
+        var original = new ConfigWrapperBuilder(dir.resolve("layered.json").toFile()).addProfile("dev").build();
+        original.setOverride("c", JSONValue.of(3));
+
+        var copy = original.copy();
+        Assertions.assertSame(original.resolvedConfig(), copy.resolvedConfig());
+        Assertions.assertEquals(Map.of("a", JSONValue.of(1.0), "b", JSONValue.of(2.0), "c", JSONValue.of(3)), copy.resolvedConfig());
+
+        copy.setOverride("a", JSONValue.of(4));
+        original.removeOverride("c");
+        Assertions.assertEquals(4, copy.getInt("a"));
+        Assertions.assertEquals(3, copy.getInt("c"));
+        Assertions.assertEquals(1, original.getInt("a"));
+        Assertions.assertEquals(-1, original.getInt("c", -1));
+    }
+
+    record Collections(ArrayList<String> names, LinkedList<Integer> ports, Set<String> tags, List<String> list,
+                       HashMap<String, Integer> limits, TreeMap<String, Boolean> flags, Map<String, Integer> map) {}
+    record Unsupported(Queue<String> names) {}
 
+    static class Mutable {
+        ArrayList<String> names = new ArrayList<>(List.of("default"));
     }
+
+    @Test
+    void testBindingCollectionTypes(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("collections.json"), """
+                {"names": ["a", "b"], "ports": [80, 443], "tags": ["x", "y", "x"], "list": ["l"],
+                 "limits": {"a": 1}, "flags": {"b": true, "a": false}, "map": {"m": 2}}
+                """);
+        var config = new ConfigWrapperBuilder(dir.resolve("collections.json").toFile()).build();
+
+        var bound = config.bind(Collections.class);
+        Assertions.assertEquals(new ArrayList<>(List.of("a", "b")), bound.names());
+        Assertions.assertEquals(new LinkedList<>(List.of(80, 443)), bound.ports());
+        Assertions.assertEquals(List.of("x", "y"), List.copyOf(bound.tags()));
+        Assertions.assertEquals(Map.of("a", 1), bound.limits());
+        Assertions.assertEquals(List.of("a", "b"), List.copyOf(bound.flags().keySet()));
+        // concrete classes are created as declared and stay mutable, interfaces are unmodifiable
+        bound.names().add("c");
+        bound.limits().put("b", 2);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> bound.tags().add("z"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> bound.list().add("z"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> bound.map().put("z", 0));
+
+        Assertions.assertEquals(List.of("a", "b"), config.bind(Mutable.class).names);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.bind(Unsupported.class));
+    }
+
 }
@@ -0,0 +1,89 @@
+import com.github.nedelis.jc4j.logging.JC4JAsyncFileAppender;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class JC4JAsyncFileAppenderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testOrderAndFlushOnClose() throws Exception {
+        var file = dir.resolve("async.log");
+        var appender = new JC4JAsyncFileAppender(file, 16, JC4JAsyncFileAppender.OverflowPolicy.BLOCK, Duration.ofHours(1));
+        var expected = IntStream.range(0, 10_000).mapToObj(i -> "message " + i).toList();
+        expected.forEach(appender::append);
+        appender.close();
+
+        Assertions.assertEquals(expected, Files.readAllLines(file));
+        Assertions.assertEquals(0, appender.droppedMessages());
+        appender.append("after close");
+        Assertions.assertEquals(1, appender.droppedMessages());
+    }
+
+    @Test
+    void testConcurrentProducers() throws Exception {
+        var file = dir.resolve("concurrent.log");
+        var appender = new JC4JAsyncFileAppender(file, 64, JC4JAsyncFileAppender.OverflowPolicy.BLOCK, Duration.ofHours(1));
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            var name = "t" + t;
+            var thread = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++)
+                    appender.append(name + " " + i);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (var thread : threads)
+            thread.join();
+        appender.close();
+
+        var lines = Files.readAllLines(file);
+        Assertions.assertEquals(8_000, lines.size());
+        // messages of every producer keep their order
+        for (int t = 0; t < 4; t++) {
+            var prefix = "t" + t + " ";
+            var own = lines.stream().filter(line -> line.startsWith(prefix)).toList();
+            Assertions.assertEquals(IntStream.range(0, 2_000).mapToObj(i -> prefix + i).toList(), own);
+        }
+    }
+
+    @Test
+    void testIdleWriterSleepsUntilSignalled() throws Exception {
+        var file = dir.resolve("idle.log");
+        var appender = new JC4JAsyncFileAppender(file);
+        try {
+            appender.append("first");
+            waitForLines(file, List.of("first"));
+            var writer = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("JC4J-AsyncFileAppender-idle.log"))
+                    .findFirst().orElseThrow();
+            // the file is forced within the flush interval, after that the writer waits without timeout
+            var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline)
+                Thread.sleep(10);
+            Assertions.assertEquals(Thread.State.WAITING, writer.getState());
+
+            appender.append("second");
+            waitForLines(file, List.of("first", "second"));
+        } finally {
+            appender.close();
+        }
+    }
+
+    private static void waitForLines(Path file, List<String> expected) throws Exception {
+        var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!expected.equals(Files.readAllLines(file)) && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        Assertions.assertEquals(expected, Files.readAllLines(file));
+    }
+
+}
@@ -0,0 +1,42 @@
+import com.github.nedelis.jc4j.logging.JC4JLogLevel;
+import com.github.nedelis.jc4j.logging.JC4JLoggerMessagePattern;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Pattern;
+
+public class JC4JLoggerMessagePatternTest {
+
+    @Test
+    void testStamps() {
+        var pattern = new JC4JLoggerMessagePattern("`yyyy`-`MM`-`dd` `hh` `HH` `a` `mm`:`ss`.`SSS` `log-name` [`lvl`] `msg``unknown` end");
+        var before = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        var formatted = pattern.getFormattedMessage("hello", "logger", JC4JLogLevel.WARN);
+        var after = LocalDateTime.now();
+
+        var matcher = Pattern.compile("(\\d{4})-(\\d{2})-(\\d{2}) (\\d{2}) (\\d{2}) (AM|PM) (\\d{2}):(\\d{2})\\.(\\d{3}) logger \\[WARN] hello end")
+                .matcher(formatted);
+        Assertions.assertTrue(matcher.matches(), formatted);
+        var time = LocalDateTime.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)),
+                Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(7)), Integer.parseInt(matcher.group(8)));
+        Assertions.assertFalse(time.isBefore(before), formatted);
+        Assertions.assertFalse(time.isAfter(after), formatted);
+
+        // 'hh' is the hour on the 12-hour clock, 'HH' on the 24-hour clock
+        var hour = time.getHour();
+        Assertions.assertEquals(hour % 12 == 0 ? 12 : hour % 12, Integer.parseInt(matcher.group(4)), formatted);
+        Assertions.assertEquals(hour < 12 ? "AM" : "PM", matcher.group(6), formatted);
+    }
+
+    @Test
+    void testDefaultPattern() {
+        var pattern = new JC4JLoggerMessagePattern();
+        Assertions.assertEquals("`HH`:`mm`:`ss` `log-name` [`lvl`] `msg`", pattern.toString());
+        var formatted = pattern.getFormattedMessage("message", "JC4J", JC4JLogLevel.INFO);
+        Assertions.assertTrue(formatted.matches("\\d{2}:\\d{2}:\\d{2} JC4J \\[INFO] message"), formatted);
+        // the buffer is reused, the next message doesn't contain the previous one
+        Assertions.assertTrue(pattern.getFormattedMessage("m", "JC4J", JC4JLogLevel.ERROR).endsWith(" JC4J [ERROR] m"));
+    }
+
+}
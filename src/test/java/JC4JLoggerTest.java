@@ -0,0 +1,125 @@
+import com.github.nedelis.jc4j.logging.JC4JAppender;
+import com.github.nedelis.jc4j.logging.JC4JLogLevel;
+import com.github.nedelis.jc4j.logging.JC4JLogger;
+import com.github.nedelis.jc4j.logging.JC4JLoggerBuilder;
+import com.github.nedelis.jc4j.logging.JC4JLoggerMessagePattern;
+import com.github.nedelis.jc4j.util.Procedure;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class JC4JLoggerTest {
+
+    /**
+     * Collects the formatted messages
+     */
+    private static final class ListAppender implements JC4JAppender {
+
+        final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void append(@NotNull String formattedMessage) {
+            messages.add(formattedMessage);
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    private final ListAppender appender = new ListAppender();
+
+    private JC4JLogger logger(int level) {
+        return new JC4JLoggerBuilder("test")
+                .setLogLevel(level)
+                .setPattern(new JC4JLoggerMessagePattern("[`lvl`] `msg`"))
+                .setAppender(appender)
+                .setConsoleOutput(false)
+                .build();
+    }
+
+    @Test
+    void testSuppressionIsPerThread() throws Exception {
+        var logger = logger(JC4JLogLevel.DEBUG);
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var suppressedInside = new AtomicBoolean();
+        var thread = new Thread(() -> logger.doWithoutLogging(() -> {
+            logger.debug("hidden");
+            suppressedInside.set(!logger.isDebugEnabled());
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        thread.start();
+        try {
+            Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+            // the other thread is still inside doWithoutLogging
+            Assertions.assertTrue(logger.isDebugEnabled());
+            logger.debug("visible");
+        } finally {
+            release.countDown();
+            thread.join();
+        }
+        Assertions.assertTrue(suppressedInside.get());
+        Assertions.assertEquals(List.of("[DEBUG] visible"), appender.messages);
+    }
+
+    @Test
+    void testNestedSuppressionRestoresState() {
+        var logger = logger(JC4JLogLevel.DEBUG);
+        var result = logger.doWithoutLogging(() -> {
+            var inner = logger.doWithoutLogging(() -> {
+                logger.info("inner");
+                return 1;
+            });
+            // still suppressed after the inner call
+            Assertions.assertFalse(logger.isInfoEnabled());
+            logger.info("outer");
+            return inner + 1;
+        });
+        Assertions.assertEquals(2, result);
+        Assertions.assertTrue(logger.isInfoEnabled());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> logger.doWithoutLogging((Procedure) () -> {
+            throw new IllegalStateException();
+        }));
+        Assertions.assertTrue(logger.isInfoEnabled());
+        logger.info("after");
+        Assertions.assertEquals(List.of("[INFO] after"), appender.messages);
+    }
+
+    @Test
+    void testCustomLevel() {
+        var audit = JC4JLogLevel.registerLevel("AUDIT", 20, JC4JLogLevel.WARN, JC4JLogLevel.GREEN);
+        Assertions.assertEquals(20, audit);
+        Assertions.assertEquals(20, JC4JLogLevel.getLevel("AUDIT"));
+        Assertions.assertEquals("AUDIT", JC4JLogLevel.getLevelName(20));
+        Assertions.assertEquals(JC4JLogLevel.WARN, JC4JLogLevel.getSeverity(20));
+        Assertions.assertEquals(JC4JLogLevel.GREEN, JC4JLogLevel.getLevelColor(20));
+
+        // filtered as its severity
+        logger(JC4JLogLevel.INFO).log(audit, "passes");
+        logger(JC4JLogLevel.ERROR).log(audit, "filtered");
+        // unregistered levels are never printed
+        logger(JC4JLogLevel.ALL).log(21, "unknown");
+        Assertions.assertEquals(List.of("[AUDIT] passes"), appender.messages);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JC4JLogLevel.registerLevel("AUDIT", 21, JC4JLogLevel.INFO, JC4JLogLevel.WHITE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JC4JLogLevel.registerLevel("OTHER", 20, JC4JLogLevel.INFO, JC4JLogLevel.WHITE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JC4JLogLevel.registerLevel("LOW", JC4JLogLevel.INFO, JC4JLogLevel.INFO, JC4JLogLevel.WHITE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JC4JLogLevel.registerLevel("HIGH", JC4JLogLevel.MAX_LEVELS, JC4JLogLevel.INFO, JC4JLogLevel.WHITE));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JC4JLogLevel.registerLevel("SILENT", 22, JC4JLogLevel.OFF, JC4JLogLevel.WHITE));
+        Assertions.assertEquals(-1, JC4JLogLevel.getLevel("OTHER"));
+    }
+
+}
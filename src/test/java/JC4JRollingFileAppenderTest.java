@@ -0,0 +1,113 @@
+import com.github.nedelis.jc4j.logging.JC4JRollingFileAppender;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class JC4JRollingFileAppenderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testBufferIsWrittenWhenFullAndOnClose() throws Exception {
+        var file = dir.resolve("app.log");
+        var appender = new JC4JRollingFileAppender(file, 3, 0, null, false);
+        appender.append("a");
+        appender.append("b");
+        Assertions.assertFalse(Files.exists(file));
+        appender.append("c");
+        Assertions.assertEquals(List.of("a", "b", "c"), Files.readAllLines(file));
+        appender.append("d");
+        appender.close();
+        Assertions.assertEquals(List.of("a", "b", "c", "d"), Files.readAllLines(file));
+
+        appender.append("after close");
+        appender.flush();
+        Assertions.assertEquals(List.of("a", "b", "c", "d"), Files.readAllLines(file));
+    }
+
+    @Test
+    void testSizeRotation() throws Exception {
+        var file = dir.resolve("app.log");
+        var appender = new JC4JRollingFileAppender(file, 1, 25, null, false);
+        for (int i = 0; i < 5; i++)
+            appender.append("message " + i);
+        appender.close();
+
+        // every file holds two 10-byte lines at most
+        Assertions.assertEquals(List.of("message 4"), Files.readAllLines(file));
+        var rotated = rotatedFiles();
+        Assertions.assertEquals(2, rotated.size());
+        var lines = new ArrayList<String>();
+        for (var path : rotated) {
+            Assertions.assertTrue(Files.size(path) <= 25);
+            lines.addAll(Files.readAllLines(path));
+        }
+        lines.sort(null);
+        Assertions.assertEquals(List.of("message 0", "message 1", "message 2", "message 3"), lines);
+    }
+
+    @Test
+    void testAgeRotation() throws Exception {
+        var file = dir.resolve("app.log");
+        var appender = new JC4JRollingFileAppender(file, 1, 0, Duration.ofMillis(50), false);
+        appender.append("old segment");
+        Thread.sleep(100);
+        appender.append("new segment");
+        appender.close();
+
+        Assertions.assertEquals(List.of("new segment"), Files.readAllLines(file));
+        var rotated = rotatedFiles();
+        Assertions.assertEquals(1, rotated.size());
+        Assertions.assertEquals(List.of("old segment"), Files.readAllLines(rotated.get(0)));
+    }
+
+    @Test
+    void testPreviousRunIsRotatedAtStart() throws Exception {
+        var file = dir.resolve("app.log");
+        Files.writeString(file, "previous run\n");
+        var appender = new JC4JRollingFileAppender(file, 8, 0, null, false);
+        Assertions.assertFalse(Files.exists(file));
+        appender.append("this run");
+        appender.close();
+
+        Assertions.assertEquals(List.of("this run"), Files.readAllLines(file));
+        var rotated = rotatedFiles();
+        Assertions.assertEquals(1, rotated.size());
+        Assertions.assertTrue(rotated.get(0).getFileName().toString().matches("app-\\d{4}-\\d{2}-\\d{2}-\\d{6}\\.log"));
+        Assertions.assertEquals(List.of("previous run"), Files.readAllLines(rotated.get(0)));
+    }
+
+    @Test
+    void testRotatedFilesAreCompressed() throws Exception {
+        var file = dir.resolve("app.log");
+        Files.writeString(file, "previous run\n");
+        var appender = new JC4JRollingFileAppender(file, 1, 0, null, true);
+        appender.append("this run");
+        appender.close();
+
+        var rotated = rotatedFiles();
+        Assertions.assertEquals(1, rotated.size());
+        Assertions.assertTrue(rotated.get(0).getFileName().toString().endsWith(".log.gz"));
+        try (var in = new GZIPInputStream(Files.newInputStream(rotated.get(0)))) {
+            Assertions.assertEquals("previous run\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(List.of("this run"), Files.readAllLines(file));
+    }
+
+    private List<Path> rotatedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> !path.getFileName().toString().equals("app.log")).sorted().toList();
+        }
+    }
+
+}
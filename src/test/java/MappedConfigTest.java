@@ -0,0 +1,134 @@
+import com.github.nedelis.jc4j.ConfigPath;
+import com.github.nedelis.jc4j.ConfigWrapper;
+import com.github.nedelis.jc4j.ConfigWrapperBuilder;
+import com.github.nedelis.jc4j.jsonvalue.JSONValue;
+import com.github.nedelis.jc4j.jsonvalue.JSONValueType;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MappedConfigTest {
+
+    private static final String CONFIG = """
+            {
+              "name": "server \\u00e9\\n",
+              "port": 8080,
+              "ratio": -1.5e-3,
+              "enabled": true,
+              "missing": null,
+              "quo\\"ted": "key with an escape",
+              "db": {"pool": [1, 2, {"maxSize": 16, "tags": ["a", "b"]}], "url": "jdbc:h2:mem"},
+              "empty": {}
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    private ConfigWrapper load(Path file, boolean memoryMapped) {
+        return new ConfigWrapperBuilder(file.toFile())
+                .setDefaultConfig(Map.of("fallback", 1))
+                .setMemoryMapped(memoryMapped)
+                .build();
+    }
+
+    /**
+     * Mapped files must not be modified in place, so they are replaced like saveConfig does it
+     */
+    private void replace(Path file, String content) throws IOException {
+        var temp = dir.resolve("replacement.tmp");
+        Files.writeString(temp, content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Test
+    void testSameValuesAsEagerMode() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var mapped = load(file, true);
+        var eager = load(file, false);
+
+        Assertions.assertTrue(mapped.isMemoryMapped());
+        Assertions.assertFalse(mapped.isBroken());
+        Assertions.assertNotSame(eager.config().getClass(), mapped.config().getClass());
+        for (var key : List.of("name", "port", "ratio", "enabled", "missing", "quo\"ted", "db", "empty", "fallback", "unknown"))
+            Assertions.assertEquals(eager.getOrDefault(key), mapped.getOrDefault(key), key);
+        Assertions.assertEquals(eager.config(), mapped.config());
+        Assertions.assertEquals(eager.config().keySet(), mapped.config().keySet());
+
+        for (var path : List.of("db.url", "db.pool[1]", "db.pool[2].maxSize", "db.pool[2].tags[1]", "db.pool[3]", "name.x")) {
+            var compiled = ConfigPath.compile(path);
+            Assertions.assertEquals(eager.get(compiled), mapped.get(compiled), path);
+        }
+        var maxSize = ConfigPath.compile("db.pool[2].maxSize");
+        Assertions.assertEquals(16, mapped.getInt(maxSize, 0));
+        Assertions.assertEquals(List.of("a", "b"), mapped.getAsJavaValue(ConfigPath.compile("db.pool[2].tags"), JSONValueType.JS_VAL_LIST)
+                .stream().map(JSONValue::value).toList());
+    }
+
+    @Test
+    void testChangedKeysOnReload() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var mapped = load(file, true);
+        var eager = load(file, false);
+
+        replace(file, CONFIG.replace("8080", "9090").replace("\"enabled\": true,", "").replace("\"empty\": {}", "\"empty\": {}, \"added\": 1"));
+        var expected = Set.of("port", "enabled", "added");
+        Assertions.assertEquals(expected, mapped.reload());
+        Assertions.assertEquals(expected, eager.reload());
+        Assertions.assertEquals(eager.config(), mapped.config());
+        Assertions.assertEquals(9090, mapped.getInt("port"));
+        Assertions.assertEquals(Set.of(), mapped.reload());
+    }
+
+    @Test
+    void testEditAfterMappedLoad() throws IOException {
+        var file = dir.resolve("config.json");
+        Files.writeString(file, CONFIG);
+        var mapped = load(file, true);
+        var snapshot = mapped.config();
+
+        mapped.putInConfig("port", JSONValue.of(1234));
+        mapped.edit(config -> {
+            config.remove("missing");
+            config.put("added", JSONValue.of("value"));
+        });
+        Assertions.assertEquals(1234, mapped.getInt("port"));
+        Assertions.assertEquals("value", mapped.get("added").value());
+        Assertions.assertFalse(mapped.config().containsKey("missing"));
+        Assertions.assertEquals(16, mapped.getInt(ConfigPath.compile("db.pool[2].maxSize"), 0));
+        // the snapshot taken before the changes still reads the mapped file
+        Assertions.assertEquals(8080.0, snapshot.get("port").value());
+
+        Assertions.assertTrue(mapped.saveConfig());
+        var reloaded = load(file, true);
+        Assertions.assertEquals(load(file, false).config(), reloaded.config());
+        Assertions.assertEquals(1234, reloaded.getInt("port"));
+        Assertions.assertEquals("value", reloaded.get("added").value());
+    }
+
+    @Test
+    void testMalformedNestedValues() throws IOException {
+        var file = dir.resolve("config.json");
+        // the first two are malformed, the others are lenient json, that isn't mapped but loaded eagerly
+        for (var document : List.of("{\"a\": {\"b\": 1 \"c\": 2}}", "{\"a\": [1 2], \"b\": 1}",
+                "{\"a\": tru, \"b\": [1,,2]}", "{\"a\": {b: 'x'}, \"n\": NaN, \"s\": \"\\u00e9\"}")) {
+            replace(file, document);
+            var mapped = load(file, true);
+            var eager = load(file, false);
+            Assertions.assertEquals(eager.isBroken(), mapped.isBroken(), document);
+            Assertions.assertEquals(eager.config(), mapped.config(), document);
+            for (var key : List.of("a", "b", "fallback"))
+                Assertions.assertEquals(eager.getOrDefault(key), mapped.getOrDefault(key), document);
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+import com.github.nedelis.jc4j.util.PersistentHashMap;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentHashMapTest {
+
+    private static final int KEYS = 600;
+
+    /**
+     * Key with a controlled hash code: a third of the keys have well spread hashes, a third share five hashes,
+     * and a third differ only in the highest bits, so the trie gets collision nodes and deep paths
+     */
+    private record Key(int id) {
+
+        @Override
+        public int hashCode() {
+            return switch (id % 3) {
+                case 0 -> id * 0x9E3779B9;
+                case 1 -> id % 5;
+                default -> (id << 26) | 0x155;
+            };
+        }
+
+    }
+
+    @Test
+    void testRandomOperationsMatchHashMap() {
+        for (long seed = 0; seed < 5; seed++) {
+            var random = new Random(seed);
+            var expected = new HashMap<Key, Integer>();
+            var actual = PersistentHashMap.<Key, Integer>empty();
+            var snapshots = new ArrayList<Map.Entry<PersistentHashMap<Key, Integer>, Map<Key, Integer>>>();
+
+            for (int i = 0; i < 20_000; i++) {
+                var key = new Key(random.nextInt(KEYS));
+                var operation = random.nextInt(10);
+                if (operation < 5) {
+                    var value = random.nextInt(4) == 0 ? null : random.nextInt(100);
+                    expected.put(key, value);
+                    actual = actual.with(key, value);
+                } else if (operation < 9) {
+                    expected.remove(key);
+                    actual = actual.without(key);
+                } else {
+                    var batch = new HashMap<Key, Integer>();
+                    for (int j = random.nextInt(20); j > 0; j--)
+                        batch.put(new Key(random.nextInt(KEYS)), random.nextInt(100));
+                    expected.putAll(batch);
+                    actual = actual.withAll(batch);
+                }
+                Assertions.assertEquals(expected.size(), actual.size());
+                Assertions.assertEquals(expected.get(key), actual.get(key));
+                Assertions.assertEquals(expected.containsKey(key), actual.containsKey(key));
+                if (i % 500 == 0) {
+                    assertSameEntries(expected, actual);
+                    assertSameEntries(expected, PersistentHashMap.of(expected));
+                    snapshots.add(Map.entry(actual, new HashMap<>(expected)));
+                }
+            }
+            assertSameEntries(expected, actual);
+            // older maps aren't affected by the later changes
+            for (var snapshot : snapshots)
+                assertSameEntries(snapshot.getValue(), snapshot.getKey());
+        }
+    }
+
+    @Test
+    void testRemovalDownToEmptyMap() {
+        var random = new Random(42);
+        var keys = new ArrayList<Key>();
+        for (int id = 0; id < KEYS; id++)
+            keys.add(new Key(id));
+        var expected = new HashMap<Key, Integer>();
+        keys.forEach(key -> expected.put(key, key.id()));
+
+        for (var built : List.of(PersistentHashMap.of(expected), PersistentHashMap.<Key, Integer>empty().withAll(expected))) {
+            var order = new ArrayList<>(keys);
+            Collections.shuffle(order, random);
+            var remaining = new HashMap<>(expected);
+            var map = built;
+            for (var key : order) {
+                remaining.remove(key);
+                map = map.without(key);
+                Assertions.assertSame(map, map.without(key));
+                Assertions.assertEquals(remaining.size(), map.size());
+                Assertions.assertFalse(map.containsKey(key));
+                if (remaining.size() % 50 == 0)
+                    assertSameEntries(remaining, map);
+            }
+            Assertions.assertSame(PersistentHashMap.empty(), map);
+            Assertions.assertTrue(map.isEmpty());
+            Assertions.assertFalse(map.entrySet().iterator().hasNext());
+            Assertions.assertEquals(Map.of(), map);
+            assertSameEntries(expected, built);
+        }
+    }
+
+    @Test
+    void testCollidingKeys() {
+        // all of them have the hash code 0
+        var keys = List.of(new Key(10), new Key(25), new Key(40), new Key(55), new Key(70));
+        var expected = new HashMap<Key, Integer>();
+        var map = PersistentHashMap.<Key, Integer>empty();
+        for (var key : keys) {
+            expected.put(key, key.id());
+            map = map.with(key, key.id());
+            assertSameEntries(expected, map);
+        }
+        assertSameEntries(expected, PersistentHashMap.of(expected));
+
+        // a key with another hash next to the collided ones
+        map = map.with(new Key(3), 3).with(new Key(32), 32);
+        expected.put(new Key(3), 3);
+        expected.put(new Key(32), 32);
+        assertSameEntries(expected, map);
+        Assertions.assertNull(map.get(new Key(85)));
+        Assertions.assertFalse(map.containsKey(new Key(85)));
+        Assertions.assertSame(map, map.without(new Key(85)));
+
+        for (var key : keys) {
+            expected.remove(key);
+            map = map.without(key);
+            assertSameEntries(expected, map);
+        }
+    }
+
+    @Test
+    void testUnchangedMapIsReturned() {
+        var value = 1000;
+        var map = PersistentHashMap.<Key, Integer>empty().with(new Key(1), value).with(new Key(6), null);
+        Assertions.assertSame(map, map.with(new Key(1), map.get(new Key(1))));
+        Assertions.assertSame(map, map.with(new Key(6), null));
+        Assertions.assertSame(map, map.without(new Key(2)));
+        Assertions.assertSame(map, PersistentHashMap.of(map));
+        Assertions.assertTrue(map.containsKey(new Key(6)));
+        Assertions.assertNull(map.get(new Key(6)));
+        Assertions.assertNull(map.get(null));
+        Assertions.assertFalse(map.containsKey(null));
+
+        var nullKey = new HashMap<Key, Integer>();
+        nullKey.put(null, 1);
+        Assertions.assertThrows(NullPointerException.class, () -> PersistentHashMap.of(nullKey));
+    }
+
+    @Test
+    void testEditor() {
+        var random = new Random(7);
+        var expected = new HashMap<Key, Integer>();
+        for (int id = 0; id < KEYS; id += 2)
+            expected.put(new Key(id), id);
+        var base = PersistentHashMap.of(expected);
+        var original = new HashMap<>(expected);
+        var editor = base.editor();
+
+        for (int i = 0; i < 5_000; i++) {
+            var key = new Key(random.nextInt(KEYS));
+            if (random.nextBoolean())
+                Assertions.assertEquals(expected.put(key, i), editor.put(key, i));
+            else
+                Assertions.assertEquals(expected.remove(key), editor.remove(key));
+            Assertions.assertEquals(expected.size(), editor.size());
+        }
+        Assertions.assertEquals(expected, editor);
+        assertSameEntries(expected, editor.toPersistent());
+        Assertions.assertSame(editor.toPersistent(), editor.toPersistent());
+
+        // removal through the iterator
+        var iterator = editor.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.getKey().id() % 3 == 1) {
+                iterator.remove();
+                expected.remove(entry.getKey());
+            }
+        }
+        assertSameEntries(expected, editor.toPersistent());
+        Assertions.assertNull(editor.remove(null));
+
+        editor.clear();
+        Assertions.assertTrue(editor.isEmpty());
+        Assertions.assertSame(PersistentHashMap.empty(), editor.toPersistent());
+        assertSameEntries(original, base);
+    }
+
+    /**
+     * Checks the whole map contract: lookups, equality in both directions, hash code, iteration and forEach
+     */
+    private static void assertSameEntries(Map<Key, Integer> expected, PersistentHashMap<Key, Integer> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        Assertions.assertEquals(expected.isEmpty(), actual.isEmpty());
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(actual, expected);
+        Assertions.assertEquals(expected.hashCode(), actual.hashCode());
+        for (var entry : expected.entrySet()) {
+            Assertions.assertTrue(actual.containsKey(entry.getKey()));
+            Assertions.assertEquals(entry.getValue(), actual.get(entry.getKey()));
+        }
+
+        var iterated = new HashMap<Key, Integer>();
+        var count = 0;
+        for (var entry : actual.entrySet()) {
+            iterated.put(entry.getKey(), entry.getValue());
+            count++;
+        }
+        Assertions.assertEquals(expected.size(), count);
+        Assertions.assertEquals(expected, iterated);
+
+        var visited = new HashMap<Key, Integer>();
+        actual.forEach((key, value) -> {
+            Assertions.assertFalse(visited.containsKey(key));
+            visited.put(key, value);
+        });
+        Assertions.assertEquals(expected, visited);
+    }
+
+}